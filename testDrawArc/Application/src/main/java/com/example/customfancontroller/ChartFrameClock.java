@@ -0,0 +1,149 @@
+package com.example.customfancontroller;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+
+/**
+ * Process-wide animation clock for the chart views on the UI thread. Every
+ * animating chart registers one {@link FrameCallback}; the clock asks for a
+ * single vsync callback per frame and ticks all of them in one pass, before
+ * the frame is drawn. Once no callback is left it stops asking for frames,
+ * so idle charts cost nothing.
+ *
+ * Must only be used on the main thread.
+ */
+public final class ChartFrameClock {
+
+    /**
+     * Ticked once per frame while registered.
+     */
+    public interface FrameCallback {
+        /**
+         * @param frameTimeMillis Frame time in the {@link SystemClock#uptimeMillis} base,
+         *                        the same for every callback of a frame.
+         * @return true to be ticked again next frame, false to unregister
+         */
+        boolean doFrame(long frameTimeMillis);
+    }
+
+    private static final long FALLBACK_FRAME_DELAY = 16; // ms, before API 16
+
+    private static ChartFrameClock sInstance;
+
+    // Registered callbacks; entries removed during a pass are nulled and
+    // compacted afterwards.
+    private final ArrayList<FrameCallback> mCallbacks = new ArrayList<FrameCallback>();
+    private boolean mDispatching;
+    private boolean mFrameScheduled;
+
+    private Choreographer.FrameCallback mVsyncCallback;
+    private Handler mFallbackHandler;
+    private final Runnable mFallbackFrame = new Runnable() {
+        @Override
+        public void run() {
+            doFrame(SystemClock.uptimeMillis());
+        }
+    };
+
+    private ChartFrameClock() {
+    }
+
+    public static ChartFrameClock getInstance() {
+        if (sInstance == null) {
+            sInstance = new ChartFrameClock();
+        }
+        return sInstance;
+    }
+
+    /**
+     * Tick {@code callback} from the next frame on until it returns false
+     * or is removed. Adding a registered callback does nothing.
+     */
+    public void add(FrameCallback callback) {
+        if (!mCallbacks.contains(callback)) {
+            mCallbacks.add(callback);
+        }
+        scheduleFrame();
+    }
+
+    public void remove(FrameCallback callback) {
+        int index = mCallbacks.indexOf(callback);
+        if (index < 0) {
+            return;
+        }
+        if (mDispatching) {
+            mCallbacks.set(index, null);
+        } else {
+            mCallbacks.remove(index);
+        }
+    }
+
+    /**
+     * Unregister every callback. Package-private so tests can start each
+     * from an idle clock; a frame already asked for still arrives and
+     * finds nothing to tick.
+     */
+    void removeAll() {
+        mCallbacks.clear();
+    }
+
+    private void scheduleFrame() {
+        if (mFrameScheduled || mCallbacks.isEmpty()) {
+            return;
+        }
+        mFrameScheduled = true;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            if (mVsyncCallback == null) {
+                mVsyncCallback = new Choreographer.FrameCallback() {
+                    @Override
+                    public void doFrame(long frameTimeNanos) {
+                        ChartFrameClock.this.doFrame(frameTimeNanos / 1000000);
+                    }
+                };
+            }
+            Choreographer.getInstance().postFrameCallback(mVsyncCallback);
+        } else {
+            if (mFallbackHandler == null) {
+                mFallbackHandler = new Handler(Looper.getMainLooper());
+            }
+            mFallbackHandler.postDelayed(mFallbackFrame, FALLBACK_FRAME_DELAY);
+        }
+    }
+
+    private void doFrame(long frameTimeMillis) {
+        mFrameScheduled = false;
+        dispatchFrame(frameTimeMillis);
+        scheduleFrame();
+    }
+
+    /**
+     * Tick every registered callback once, without asking for the next
+     * frame. Package-private so tests can step animations frame by frame.
+     */
+    void dispatchFrame(long frameTimeMillis) {
+        final ArrayList<FrameCallback> callbacks = mCallbacks;
+        // Callbacks added during the pass are first ticked next frame.
+        final int count = callbacks.size();
+        mDispatching = true;
+        try {
+            for (int i = 0; i < count; i++) {
+                FrameCallback callback = callbacks.get(i);
+                if (callback != null && !callback.doFrame(frameTimeMillis)) {
+                    callbacks.set(i, null);
+                }
+            }
+        } finally {
+            mDispatching = false;
+            for (int i = callbacks.size() - 1; i >= 0; i--) {
+                if (callbacks.get(i) == null) {
+                    callbacks.remove(i);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.customfancontroller;
+
+import java.util.Arrays;
+
+/**
+ * Opt-in frame-time instrumentation for a chart view: onDraw() and
+ * animation-tick durations in fixed-bucket histograms, invalidation counts
+ * and the number of frames over budget. Attach an instance to a view with
+ * its {@code setFrameMetrics()}; views without one skip all of this.
+ *
+ * Recording and {@link #snapshot()} must happen on the view's UI thread.
+ * Recording only updates primitive counters; the only allocation is the
+ * {@link Snapshot} handed to a {@link Listener} or returned by
+ * {@link #snapshot()}.
+ */
+public final class ChartFrameMetrics {
+
+    /**
+     * Receives a snapshot every {@code reportInterval} drawn frames, on the
+     * UI thread.
+     */
+    public interface Listener {
+        void onFrameMetrics(ChartFrameMetrics metrics, Snapshot snapshot);
+    }
+
+    public static final long DEFAULT_FRAME_BUDGET_NANOS = 16666667; // 60 Hz
+
+    // Upper bounds of the histogram buckets; the last bucket holds anything
+    // slower.
+    private static final long[] BUCKET_BOUNDS_NANOS = {
+            250000, 500000, 1000000, 2000000, 4000000, 8000000,
+            12000000, 16666667, 24000000, 33333333, 50000000, 100000000};
+    private static final int BUCKET_COUNT = BUCKET_BOUNDS_NANOS.length + 1;
+
+    private final long mFrameBudgetNanos;
+
+    private final long[] mDrawBuckets = new long[BUCKET_COUNT];
+    private final long[] mTickBuckets = new long[BUCKET_COUNT];
+    private long mDrawCount;
+    private long mTickCount;
+    private long mTotalDrawNanos;
+    private long mTotalTickNanos;
+    private long mMaxDrawNanos;
+    private long mMaxTickNanos;
+    private long mInvalidateCount;
+    private long mOverBudgetFrames;
+    private long mTickNanosSinceDraw;        // Ticks counted into the next frame.
+
+    private Listener mListener;
+    private int mReportInterval;
+    private int mFramesSinceReport;
+
+    public ChartFrameMetrics() {
+        this(DEFAULT_FRAME_BUDGET_NANOS);
+    }
+
+    /**
+     * @param frameBudgetNanos time a view may spend on one frame, ticks and
+     *                         drawing together, before the frame counts as
+     *                         over budget
+     */
+    public ChartFrameMetrics(long frameBudgetNanos) {
+        mFrameBudgetNanos = frameBudgetNanos;
+    }
+
+    /**
+     * Deliver a snapshot to {@code listener} after every
+     * {@code reportInterval} drawn frames, or stop with a null listener.
+     */
+    public void setListener(Listener listener, int reportInterval) {
+        mListener = listener;
+        mReportInterval = Math.max(1, reportInterval);
+        mFramesSinceReport = 0;
+    }
+
+    /**
+     * @return the upper bound of every histogram bucket but the last, which
+     * has none
+     */
+    public static long[] getBucketBoundsNanos() {
+        return BUCKET_BOUNDS_NANOS.clone();
+    }
+
+    public long getFrameBudgetNanos() {
+        return mFrameBudgetNanos;
+    }
+
+    /**
+     * Start timing a draw pass or tick. Called by the chart views.
+     *
+     * @return the start time to pass to {@link #endDraw} or {@link #endTick}
+     */
+    public long begin() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Record the onDraw() pass started by {@link #begin()}. Called by the
+     * chart views.
+     */
+    public void endDraw(long startNanos) {
+        recordDraw(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Record the animation tick started by {@link #begin()}. Called by the
+     * chart views.
+     */
+    public void endTick(long startNanos) {
+        recordTick(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Record one onDraw() pass timed by the caller.
+     */
+    public void recordDraw(long durationNanos) {
+        mDrawBuckets[bucketOf(durationNanos)]++;
+        mDrawCount++;
+        mTotalDrawNanos += durationNanos;
+        if (durationNanos > mMaxDrawNanos) {
+            mMaxDrawNanos = durationNanos;
+        }
+        if (durationNanos + mTickNanosSinceDraw > mFrameBudgetNanos) {
+            mOverBudgetFrames++;
+        }
+        mTickNanosSinceDraw = 0;
+
+        if (mListener != null && ++mFramesSinceReport >= mReportInterval) {
+            mFramesSinceReport = 0;
+            mListener.onFrameMetrics(this, snapshot());
+        }
+    }
+
+    /**
+     * Record one animation tick timed by the caller.
+     */
+    public void recordTick(long durationNanos) {
+        mTickBuckets[bucketOf(durationNanos)]++;
+        mTickCount++;
+        mTotalTickNanos += durationNanos;
+        if (durationNanos > mMaxTickNanos) {
+            mMaxTickNanos = durationNanos;
+        }
+        mTickNanosSinceDraw += durationNanos;
+    }
+
+    /**
+     * Record one invalidation of the view. Called by the chart views.
+     */
+    public void recordInvalidate() {
+        mInvalidateCount++;
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(this);
+    }
+
+    public void reset() {
+        Arrays.fill(mDrawBuckets, 0);
+        Arrays.fill(mTickBuckets, 0);
+        mDrawCount = mTickCount = 0;
+        mTotalDrawNanos = mTotalTickNanos = 0;
+        mMaxDrawNanos = mMaxTickNanos = 0;
+        mInvalidateCount = 0;
+        mOverBudgetFrames = 0;
+        mTickNanosSinceDraw = 0;
+        mFramesSinceReport = 0;
+    }
+
+    private static int bucketOf(long durationNanos) {
+        final long[] bounds = BUCKET_BOUNDS_NANOS;
+        for (int i = 0; i < bounds.length; i++) {
+            if (durationNanos <= bounds[i]) {
+                return i;
+            }
+        }
+        return bounds.length;
+    }
+
+    /**
+     * Immutable copy of the counters at one point in time, safe to hand to
+     * other threads.
+     */
+    public static final class Snapshot {
+
+        private final long[] drawBuckets;
+        private final long[] tickBuckets;
+        public final long drawCount;
+        public final long tickCount;
+        public final long totalDrawNanos;
+        public final long totalTickNanos;
+        public final long maxDrawNanos;
+        public final long maxTickNanos;
+        public final long invalidateCount;
+        public final long overBudgetFrames;
+
+        Snapshot(ChartFrameMetrics metrics) {
+            drawBuckets = metrics.mDrawBuckets.clone();
+            tickBuckets = metrics.mTickBuckets.clone();
+            drawCount = metrics.mDrawCount;
+            tickCount = metrics.mTickCount;
+            totalDrawNanos = metrics.mTotalDrawNanos;
+            totalTickNanos = metrics.mTotalTickNanos;
+            maxDrawNanos = metrics.mMaxDrawNanos;
+            maxTickNanos = metrics.mMaxTickNanos;
+            invalidateCount = metrics.mInvalidateCount;
+            overBudgetFrames = metrics.mOverBudgetFrames;
+        }
+
+        /**
+         * @return the number of onDraw() passes per bucket of
+         * {@link #getBucketBoundsNanos()}
+         */
+        public long[] getDrawHistogram() {
+            return drawBuckets.clone();
+        }
+
+        /**
+         * @return the number of animation ticks per bucket of
+         * {@link #getBucketBoundsNanos()}
+         */
+        public long[] getTickHistogram() {
+            return tickBuckets.clone();
+        }
+
+        @Override
+        public String toString() {
+            return "draws=" + drawCount
+                    + " avgDrawUs=" + (drawCount == 0 ? 0 : totalDrawNanos / drawCount / 1000)
+                    + " maxDrawUs=" + maxDrawNanos / 1000
+                    + " ticks=" + tickCount
+                    + " avgTickUs=" + (tickCount == 0 ? 0 : totalTickNanos / tickCount / 1000)
+                    + " maxTickUs=" + maxTickNanos / 1000
+                    + " invalidates=" + invalidateCount
+                    + " overBudget=" + overBudgetFrames;
+        }
+    }
+}
@@ -3,24 +3,44 @@ package com.example.customfancontroller;
 import android.view.animation.Animation;
 import android.view.animation.Transformation;
 
+/**
+ * View animation of the {@link CircleView} arc angle. It only hands the
+ * sweep over to the view's own animation engine, stepped by the shared
+ * {@link ChartFrameClock}, as {@link CircleView#animateAngleTo(float, long)}
+ * does: either when {@link android.view.View#startAnimation} runs it or when
+ * {@link #start()} is called. Prefer calling animateAngleTo() directly, or
+ * {@link CircleView#animateAngle(float, long)} for a property animator.
+ */
 public class CircleAngleAnimation extends Animation {
 
-    private CircleView circle;
-
-    private float oldAngle;
-    private float newAngle;
+    private final CircleView circle;
+    private final float newAngle;
 
     public CircleAngleAnimation(CircleView circle, int newAngle) {
-        this.oldAngle = circle.getAngle();
-        this.newAngle = newAngle;
         this.circle = circle;
+        this.newAngle = newAngle;
     }
 
+    /**
+     * Sweep the arc from its current angle to the new one over the
+     * animation's duration, without waiting for a view to run it.
+     */
     @Override
-    protected void applyTransformation(float interpolatedTime, Transformation transformation) {
-        float angle = oldAngle + ((newAngle - oldAngle) * interpolatedTime);
+    public void start() {
+        super.start();
+        circle.animateAngleTo(newAngle, getDuration());
+    }
 
-        circle.setAngle(angle);
-        circle.requestLayout();
+    @Override
+    public void initialize(int width, int height, int parentWidth, int parentHeight) {
+        super.initialize(width, height, parentWidth, parentHeight);
+        // Run by startAnimation(): the engine sweeps the arc from here on.
+        circle.animateAngleTo(newAngle, getDuration());
+    }
+
+    @Override
+    protected void applyTransformation(float interpolatedTime, Transformation transformation) {
+        // The engine redraws the circle; its size never changes, so there
+        // is nothing to transform or lay out.
     }
-}
\ No newline at end of file
+}
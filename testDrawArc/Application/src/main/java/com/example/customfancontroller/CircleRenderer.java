@@ -0,0 +1,41 @@
+package com.example.customfancontroller;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.RectF;
+
+/**
+ * Draws the arc of a {@link CircleView} or {@link CircleTextureView} onto
+ * any Canvas.
+ */
+class CircleRenderer {
+
+    private static final int START_ANGLE_POINT = 90;
+
+    private final Paint paint;
+    private final RectF rect;
+
+    float angle;
+
+    CircleRenderer() {
+        final int strokeWidth = 40;
+
+        paint = new Paint();
+        paint.setAntiAlias(true);
+        paint.setStyle(Paint.Style.STROKE);
+        paint.setStrokeWidth(strokeWidth);
+        //Circle color
+        paint.setColor(Color.RED);
+
+        //size 200x200 example
+        rect = new RectF(strokeWidth, strokeWidth, 200 + strokeWidth, 200 + strokeWidth);
+
+        //Initial Angle (optional, it can be zero)
+        angle = 120;
+    }
+
+    void draw(Canvas canvas) {
+        canvas.drawArc(rect, START_ANGLE_POINT, angle, false, paint);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.customfancontroller;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.util.AttributeSet;
+
+/**
+ * Render-thread variant of {@link CircleView}: {@link #setAngle(float)} can
+ * be called from the UI thread and the arc is redrawn on a dedicated render
+ * thread.
+ */
+public class CircleTextureView extends TextureRenderView {
+
+    private final CircleRenderer renderer = new CircleRenderer();
+    private volatile float angle = renderer.angle;
+
+    private final Runnable applyAngle = new Runnable() {
+        @Override
+        public void run() {
+            renderer.angle = angle;
+            requestRender();
+        }
+    };
+
+    public CircleTextureView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    public float getAngle() {
+        return angle;
+    }
+
+    public void setAngle(float angle) {
+        this.angle = angle;
+        queueEvent(applyAngle);
+    }
+
+    @Override
+    protected void onRenderSizeChanged(int width, int height) {
+    }
+
+    @Override
+    protected boolean onRenderFrame(long frameTimeMillis) {
+        return false;
+    }
+
+    @Override
+    protected void onRender(Canvas canvas) {
+        renderer.draw(canvas);
+    }
+
+    @Override
+    protected void onRenderRelease() {
+    }
+}
@@ -16,53 +16,210 @@
 
 package com.example.customfancontroller;
 
+import android.animation.ObjectAnimator;
 import android.content.Context;
 import android.graphics.Canvas;
-import android.graphics.Color;
-import android.graphics.Paint;
-import android.graphics.RectF;
 import android.util.AttributeSet;
+import android.util.Property;
 import android.view.View;
 
+import com.example.customfancontroller.chartmath.AnimatedValues;
+
 public class CircleView extends View {
 
-    private static final int START_ANGLE_POINT = 90;
+    /**
+     * The sweep angle of the arc, for use with property animators. Setting
+     * it only redraws the view; it never triggers a layout pass.
+     */
+    public static final Property<CircleView, Float> ANGLE =
+            new Property<CircleView, Float>(Float.class, "angle") {
+                @Override
+                public Float get(CircleView circle) {
+                    return circle.getAngle();
+                }
+
+                @Override
+                public void set(CircleView circle, Float angle) {
+                    circle.setAngle(angle);
+                }
+            };
+
+    private final CircleRenderer renderer;
+
+    // Streamed angle: the newest published sample, and the smoothing time
+    // constant of the spring that follows it.
+    private final LatestValueSlot angleSlot;
+    private long angleSmoothing;             // Time constant in ms, 0 to snap.
 
-    private final Paint paint;
-    private final RectF rect;
+    // Animated angle, driven by the smoothing spring or animateAngleTo(),
+    // and the frame time of its previous step, -1 when it is not moving.
+    private final AnimatedValues angleMotion = new AnimatedValues(1);
+    private long lastFrameTime = -1;
 
-    private float angle;
+    private ChartFrameMetrics frameMetrics;  // Null unless instrumented.
+
+    /**
+     * Steps the animated angle by the time elapsed since the previous frame,
+     * on the shared {@link ChartFrameClock}, until it comes to rest.
+     */
+    private final ChartFrameClock.FrameCallback angleAnimator = new ChartFrameClock.FrameCallback() {
+        @Override
+        public boolean doFrame(long frameTimeMillis) {
+            final ChartFrameMetrics metrics = frameMetrics;
+            final long start = metrics != null ? metrics.begin() : 0;
+            long elapsed = lastFrameTime < 0 ? 0 : frameTimeMillis - lastFrameTime;
+            lastFrameTime = frameTimeMillis;
+
+            boolean needNewFrame = angleMotion.step(elapsed);
+            setAngle(angleMotion.get(0));
+            if (!needNewFrame) {
+                lastFrameTime = -1;
+            }
+            if (metrics != null) {
+                metrics.endTick(start);
+            }
+            return needNewFrame;
+        }
+    };
 
     public CircleView(Context context, AttributeSet attrs) {
         super(context, attrs);
+        renderer = new CircleRenderer();
+        angleMotion.setSize(1);
+        angleMotion.setRestThreshold(0.05f);
+        angleSlot = new LatestValueSlot(this, new Runnable() {
+            @Override
+            public void run() {
+                float angle = angleSlot.getFloat();
+                if (angleSmoothing <= 0) {
+                    stopAngleAnimation();
+                    setAngle(angle);
+                    return;
+                }
+                syncAngleMotion();
+                angleMotion.springTo(0, angle, 1000f / angleSmoothing);
+                startAngleAnimation();
+            }
+        });
+    }
 
-        final int strokeWidth = 40;
+    // The angle may have been set directly since the motion last ran.
+    private void syncAngleMotion() {
+        if (angleMotion.isAtRest(0)) {
+            angleMotion.snapTo(0, getAngle());
+        }
+    }
 
-        paint = new Paint();
-        paint.setAntiAlias(true);
-        paint.setStyle(Paint.Style.STROKE);
-        paint.setStrokeWidth(strokeWidth);
-        //Circle color
-        paint.setColor(Color.RED);
+    private void startAngleAnimation() {
+        ChartFrameClock.getInstance().add(angleAnimator);
+    }
 
-        //size 200x200 example
-        rect = new RectF(strokeWidth, strokeWidth, 200 + strokeWidth, 200 + strokeWidth);
+    private void stopAngleAnimation() {
+        ChartFrameClock.getInstance().remove(angleAnimator);
+        lastFrameTime = -1;
+        angleMotion.snapTo(0, getAngle());
+    }
 
-        //Initial Angle (optional, it can be zero)
-        angle = 120;
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        angleSlot.onAttachedToWindow();
+        if (!angleMotion.isAtRest(0)) {
+            startAngleAnimation();
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        ChartFrameClock.getInstance().remove(angleAnimator);
+        lastFrameTime = -1;
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
-        canvas.drawArc(rect, START_ANGLE_POINT, angle, false, paint);
+        final ChartFrameMetrics metrics = frameMetrics;
+        final long start = metrics != null ? metrics.begin() : 0;
+        renderer.draw(canvas);
+        if (metrics != null) {
+            metrics.endDraw(start);
+        }
+    }
+
+    /**
+     * Record frame timings of this view into {@code metrics}, or stop with
+     * null.
+     */
+    public void setFrameMetrics(ChartFrameMetrics metrics) {
+        frameMetrics = metrics;
+    }
+
+    public ChartFrameMetrics getFrameMetrics() {
+        return frameMetrics;
+    }
+
+    @Override
+    public void invalidate() {
+        final ChartFrameMetrics metrics = frameMetrics;
+        if (metrics != null) {
+            metrics.recordInvalidate();
+        }
+        super.invalidate();
     }
 
     public float getAngle() {
-        return angle;
+        return renderer.angle;
     }
 
+    /**
+     * Set the sweep angle of the arc and redraw. The size of the view does
+     * not depend on the angle, so no layout is requested.
+     */
     public void setAngle(float angle) {
-        this.angle = angle;
+        if (renderer.angle != angle) {
+            renderer.angle = angle;
+            invalidate();
+        }
+    }
+
+    /**
+     * Publish a new angle from any thread. Samples are coalesced: the view
+     * picks up only the newest one, at most once per frame, and eases
+     * towards it if {@link #setAngleSmoothing smoothing} is enabled.
+     */
+    public void publishAngle(float angle) {
+        angleSlot.publish(angle);
+    }
+
+    /**
+     * Set how smoothly the drawn angle follows published angles: the time
+     * constant, in milliseconds, of a critically damped spring towards the
+     * newest sample. The spring keeps its speed when a new sample retargets
+     * it. 0, the default, jumps straight to it.
+     */
+    public void setAngleSmoothing(long timeConstantMillis) {
+        angleSmoothing = Math.max(0, timeConstantMillis);
+    }
+
+    /**
+     * Sweep the arc from its current angle to {@code angle} over the given
+     * duration, easing in and out. This is stepped by the shared
+     * {@link ChartFrameClock} and replaces any smoothing or sweep in progress.
+     */
+    public void animateAngleTo(float angle, long duration) {
+        syncAngleMotion();
+        angleMotion.animateTo(0, angle, duration, AnimatedValues.CURVE_EASE_IN_OUT);
+        startAngleAnimation();
+    }
+
+    /**
+     * Create an animator that sweeps the arc from its current angle to
+     * {@code angle}. The caller starts it.
+     */
+    public ObjectAnimator animateAngle(float angle, long duration) {
+        ObjectAnimator animator = ObjectAnimator.ofFloat(this, ANGLE, getAngle(), angle);
+        animator.setDuration(duration);
+        return animator;
     }
 }
@@ -0,0 +1,353 @@
+/*
+ * Copyright (C) 2017 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.customfancontroller;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+
+import com.example.customfancontroller.chartmath.AnimatedValues;
+
+/**
+ * Board of dials laid out in a grid and drawn by a single view. Every dial
+ * behaves like a {@link DialView}: tapping it advances it to the next
+ * position. All dials share one {@link DialStyle}, so paints, labels and
+ * static layers exist once per board, and all arc animations are stepped
+ * by one animation callback that only invalidates what moved in each cell.
+ */
+
+public class DialBoardView extends View {
+
+    private static final long DEFAULT_ARC_DURATION = 1000;
+
+    private final DialStyle mStyle = new DialStyle();
+    private DialRenderer[] mDials = new DialRenderer[0];
+    private int mColumns;                    // 0 picks a near-square grid.
+    private int mGridColumns = 1;            // Columns actually laid out.
+    private int mCellWidth;
+    private int mCellHeight;
+
+    // Animated marker position of every dial, all stepped together, and the
+    // frame time of the previous step, or -1 when none is moving.
+    private final AnimatedValues mArcs = new AnimatedValues(0);
+    private boolean[] mArcMoving = new boolean[0];
+    private long mLastFrameTime = -1;
+
+    private final Rect mClipBounds = new Rect();
+    private final Rect mDirtyRect = new Rect();
+    private int mTouchedDial = -1;
+    private int mClickedDial = -1;           // Tapped dial, for performClick().
+
+    /**
+     * Steps the arc animation of every animating dial, on the shared
+     * {@link ChartFrameClock}, until none is left.
+     */
+    private final ChartFrameClock.FrameCallback mAnimator = new ChartFrameClock.FrameCallback() {
+        @Override
+        public boolean doFrame(long frameTimeMillis) {
+            long elapsed = mLastFrameTime < 0 ? 0 : frameTimeMillis - mLastFrameTime;
+            mLastFrameTime = frameTimeMillis;
+
+            final boolean[] moving = mArcMoving;
+            for (int i = 0; i < mDials.length; i++) {
+                moving[i] = !mArcs.isAtRest(i);
+            }
+            boolean needNewFrame = mArcs.step(elapsed);
+            for (int i = 0; i < mDials.length; i++) {
+                if (moving[i]) {
+                    mDials[i].applyPosition(mArcs.get(i));
+                    invalidateDial(i);
+                }
+            }
+            if (!needNewFrame) {
+                mLastFrameTime = -1;
+            }
+            return needNewFrame;
+        }
+    };
+
+    /**
+     * Standard constructor.
+     *
+     * @param context The Context the view is running in, through which it can
+     *                access the current theme, resources, etc.
+     */
+    public DialBoardView(Context context) {
+        super(context);
+    }
+
+    /**
+     * This constructor is called when a view is built from an XML file,
+     * supplying attributes that were specified in the XML file.
+     *
+     * @param context The Context the view is running in, through which it can
+     *                access the current theme, resources, etc.
+     * @param attrs   The attributes of the XML tag that is inflating the view.
+     */
+    public DialBoardView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    /**
+     * This constructor is called to supply the default style.
+     *
+     * @param context      The Context the view is running in, through which
+     *                     it can access the current theme, resources, etc.
+     * @param attrs        The attributes of the XML tag inflating the view.
+     * @param defStyleAttr The default style attributes.
+     */
+    public DialBoardView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+    }
+
+    /**
+     * Set the number of dials on the board. Existing dials keep their
+     * state; new ones start at position 0.
+     */
+    public void setDialCount(int count) {
+        count = Math.max(0, count);
+        DialRenderer[] dials = new DialRenderer[count];
+        int kept = Math.min(count, mDials.length);
+        System.arraycopy(mDials, 0, dials, 0, kept);
+        for (int i = kept; i < count; i++) {
+            dials[i] = new DialRenderer(mStyle);
+        }
+        mDials = dials;
+        mArcs.setSize(count);
+        mArcMoving = new boolean[count];
+        layoutDials(getWidth(), getHeight());
+        invalidate();
+    }
+
+    public int getDialCount() {
+        return mDials.length;
+    }
+
+    /**
+     * Set the number of grid columns, or 0 to pick a near-square grid.
+     */
+    public void setColumns(int columns) {
+        mColumns = Math.max(0, columns);
+        layoutDials(getWidth(), getHeight());
+        invalidate();
+    }
+
+    /**
+     * Set the number of positions around the given dial, from 1 up to 3600;
+     * the default is 12. Like {@link DialView#setSelectionCount}, labels and
+     * tick marks that would be too close together at the cell size are
+     * thinned out, and the marker comes to rest on the active selection,
+     * wrapped into the new count.
+     */
+    public void setSelectionCount(int index, int count) {
+        if (mDials[index].setSelectionCount(count)) {
+            mArcs.snapTo(index, mDials[index].getPosition());
+            updateLayerCapacity();
+            invalidateDial(index);
+        }
+    }
+
+    public int getSelectionCount(int index) {
+        return mDials[index].getSelectionCount();
+    }
+
+    /**
+     * Rotate the given dial to its next position and animate it there.
+     */
+    public void advanceSelection(int index) {
+        mDials[index].advanceSelection();
+        animateArc(index, DEFAULT_ARC_DURATION);
+    }
+
+    /**
+     * Animate the marker and the arcs of the given dial from where they are
+     * now to its active selection, taking {@code duration} for every
+     * position on the way. A running animation of the dial is retargeted
+     * in place rather than restarted.
+     */
+    public void animateArc(int index, long duration) {
+        float target = mDials[index].getTargetPosition();
+        float distance = Math.abs(target - mArcs.get(index));
+        mArcs.animateTo(index, target, duration * distance, AnimatedValues.CURVE_LINEAR);
+        invalidateDial(index);
+        ChartFrameClock.getInstance().add(mAnimator);
+    }
+
+    /**
+     * Invalidate only the part of the given dial's cell that its renderer
+     * changed since the last frame.
+     */
+    private void invalidateDial(int index) {
+        final Rect dirty = mDirtyRect;
+        if (!mDials[index].consumeDirtyRegion(dirty)) {
+            return;
+        }
+        int left = (index % mGridColumns) * mCellWidth;
+        int top = (index / mGridColumns) * mCellHeight;
+        invalidate(left + dirty.left, top + dirty.top, left + dirty.right, top + dirty.bottom);
+    }
+
+    /**
+     * @return the dial under the given point, or -1
+     */
+    private int dialAt(float x, float y) {
+        if (mCellWidth <= 0 || mCellHeight <= 0 || x < 0 || y < 0) {
+            return -1;
+        }
+        int column = (int) (x / mCellWidth);
+        if (column >= mGridColumns) {
+            return -1;
+        }
+        int index = (int) (y / mCellHeight) * mGridColumns + column;
+        return index < mDials.length ? index : -1;
+    }
+
+    private void layoutDials(int w, int h) {
+        final int count = mDials.length;
+        if (mColumns > 0) {
+            mGridColumns = mColumns;
+        } else {
+            mGridColumns = Math.max(1, (int) Math.ceil(Math.sqrt(count)));
+        }
+        int rows = Math.max(1, (count + mGridColumns - 1) / mGridColumns);
+        mCellWidth = w / mGridColumns;
+        mCellHeight = h / rows;
+
+        // Every dial has the same size, so the old static layers are of no
+        // further use. They are only dropped: the last frame's display list
+        // may still draw them.
+        mStyle.dropLayers();
+        for (int i = 0; i < count; i++) {
+            mDials[i].setSize(mCellWidth, mCellHeight);
+        }
+        updateLayerCapacity();
+    }
+
+    /**
+     * Let the shared style keep a static layer for every selection count
+     * on the board, in both dial colors. onDraw() walks the dials in a fixed
+     * order, so with fewer layers than that the cache would miss on every
+     * dial and redraw its layer each frame.
+     */
+    private void updateLayerCapacity() {
+        final DialRenderer[] dials = mDials;
+        int distinctCounts = 0;
+        for (int i = 0; i < dials.length; i++) {
+            int count = dials[i].getSelectionCount();
+            int j = 0;
+            while (j < i && dials[j].getSelectionCount() != count) {
+                j++;
+            }
+            if (j == i) {
+                distinctCounts++;
+            }
+        }
+        mStyle.setMaxLayers(Math.max(DialStyle.DEFAULT_MAX_LAYERS, 2 * distinctCounts));
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        layoutDials(w, h);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        ChartFrameClock.getInstance().remove(mAnimator);
+        mLastFrameTime = -1;
+        mStyle.releaseLayers();
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        if (!mArcs.isAtRest()) {
+            ChartFrameClock.getInstance().add(mAnimator);
+        }
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        switch (event.getAction()) {
+            case MotionEvent.ACTION_DOWN:
+                mTouchedDial = dialAt(event.getX(), event.getY());
+                return mTouchedDial >= 0;
+            case MotionEvent.ACTION_UP:
+                if (mTouchedDial >= 0 && mTouchedDial == dialAt(event.getX(), event.getY())) {
+                    mClickedDial = mTouchedDial;
+                    performClick();
+                }
+                mTouchedDial = -1;
+                return true;
+            case MotionEvent.ACTION_CANCEL:
+                mTouchedDial = -1;
+                return true;
+            default:
+                return mTouchedDial >= 0;
+        }
+    }
+
+    /**
+     * Report the click to the click listener and accessibility services,
+     * then advance the dial a completed tap landed on. A click that does not
+     * come from a tap has no dial to advance.
+     */
+    @Override
+    public boolean performClick() {
+        boolean handled = super.performClick();
+        int dial = mClickedDial;
+        mClickedDial = -1;
+        if (dial >= 0 && dial < mDials.length) {
+            advanceSelection(dial);
+            return true;
+        }
+        return handled;
+    }
+
+    /**
+     * Render every dial whose cell intersects the dirty area, each
+     * translated into its cell.
+     *
+     * @param canvas the canvas on which the background will be drawn
+     */
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (mCellWidth <= 0 || mCellHeight <= 0) {
+            return;
+        }
+        final Rect clip = mClipBounds;
+        if (!canvas.getClipBounds(clip)) {
+            return;
+        }
+        for (int i = 0; i < mDials.length; i++) {
+            int left = (i % mGridColumns) * mCellWidth;
+            int top = (i / mGridColumns) * mCellHeight;
+            if (left >= clip.right || top >= clip.bottom
+                    || left + mCellWidth <= clip.left || top + mCellHeight <= clip.top) {
+                continue;
+            }
+            int saveCount = canvas.save();
+            canvas.translate(left, top);
+            mDials[i].draw(canvas);
+            canvas.restoreToCount(saveCount);
+        }
+    }
+}
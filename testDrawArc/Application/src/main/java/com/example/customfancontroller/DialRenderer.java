@@ -0,0 +1,535 @@
+/*
+ * Copyright (C) 2017 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.customfancontroller;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+import com.example.customfancontroller.chartmath.ArcBounds;
+import com.example.customfancontroller.chartmath.DialGeometry;
+import com.example.customfancontroller.chartmath.DialLayout;
+
+/**
+ * Draws a multi-position "dial" onto any Canvas and holds its selection and
+ * animation state. It is not tied to a View, so the same drawing is used by
+ * {@link DialView} on the UI thread, by {@link DialTextureView} on a
+ * render thread and by {@link DialBoardView} for each of its dials. Paints,
+ * labels and the static layer come from a {@link DialStyle}, which may be
+ * shared between renderers. Every renderer has its own selection count,
+ * from a few positions up to thousands of ticks; labels and ticks that
+ * would crowd each other are left out. A renderer must only be used from
+ * one thread at a time.
+ */
+
+class DialRenderer {
+
+    static final int DEFAULT_SELECTION_COUNT = 12;
+    static final int MAX_SELECTION_COUNT = 3600;
+
+    private int mSelectionCount = DEFAULT_SELECTION_COUNT;  // Total number of selections.
+
+    private float mWidth;                    // Drawing area width.
+    private float mHeight;                   // Drawing area height.
+    private final DialStyle mStyle;          // Paints, labels and static layers.
+    private final boolean mOwnsStyle;        // False if the style is shared.
+    private int mDialColor = DialLayout.DIAL_COLOR_OFF;     // For dial circle in the view.
+
+    private float mRadius;                   // Radius of the dial.
+    private int mActiveSelection;            // The active selection.
+
+    // Marker position in selections, counted on without wrapping, so a dial
+    // that went round once is at the selection count plus its selection. The arcs
+    // run from mAnchorPosition, where the current movement started, to the
+    // marker; mTargetPosition is where the movement ends.
+    private float mPosition;
+    private float mAnchorPosition;
+    private int mTargetPosition;
+
+    float drawingStartAngle;  //the drawing start angle
+    float sweepAngle;
+
+    // float for ComputeXY result.
+    private final float[] mTempResult = new float[2];
+
+    // Arc bounds and the outline of each debug bounding box. These only
+    // depend on the size, so they are filled in by setSize().
+    private final RectF mLabelRect = new RectF();
+    private final RectF mMarkerRect = new RectF();
+    private final float[] mLabelRectLines = new float[16];
+    private final float[] mMarkerRectLines = new float[16];
+    private final float[] mBoundsLines = new float[16];
+
+    // Geometry table: the x/y centre of the label of every position and of
+    // the marker resting on it. Rebuilt by computeGeometry() only when the
+    // size or the selection count changes.
+    private int mGeometryCount;
+    private float mSectionAngle;             // Angle between two positions.
+    private float[] mLabelX;
+    private float[] mLabelY;
+    private float[] mMarkerX;
+    private float[] mMarkerY;
+
+    // Labels and ticks that fit at the current size: only every
+    // mLabelStride-th position is labelled, and when that leaves positions
+    // out, the tick marks of every few positions are drawn from mTickLines
+    // in one drawLines() call.
+    private int mLabelStride = 1;
+    private float[] mTickLines;
+    private int mTickLineCount;
+
+    // Current centre of the marker dot, moved by the animation.
+    private float mMarkerPosX;
+    private float mMarkerPosY;
+
+    // Area that changed since the last consumeDirtyRegion(): the arc
+    // segments and marker dots that moved, or everything if mFullyDirty.
+    private final RectF mDirty = new RectF();
+    private boolean mFullyDirty;
+    private final float[] mBounds = new float[4];
+
+    /**
+     * Create a renderer with a style of its own.
+     */
+    DialRenderer() {
+        this(new DialStyle(), true);
+    }
+
+    /**
+     * Create a renderer drawing with the given, possibly shared, style.
+     */
+    DialRenderer(DialStyle style) {
+        this(style, false);
+    }
+
+    private DialRenderer(DialStyle style, boolean ownsStyle) {
+        mStyle = style;
+        mOwnsStyle = ownsStyle;
+
+        // Initialize current selection (where the dial's "indicator" is
+        // pointing).
+
+        mActiveSelection = 0;
+        mPosition = mAnchorPosition = mTargetPosition = 0;
+
+        drawingStartAngle = DialLayout.START_DEGREES;
+        sweepAngle = 0;
+    }
+
+    /**
+     * Rotate selection forward to the next valid choice and update the dial
+     * color. The caller animates the marker to {@link #getTargetPosition()}.
+     */
+    void advanceSelection() {
+        moveTarget(1);
+    }
+
+    /**
+     * Rotate selection forward, the way the dial turns, until it reaches the
+     * given position. The caller animates the marker to
+     * {@link #getTargetPosition()}.
+     *
+     * @param position Position index, wrapped into the selection count.
+     * @return the number of positions the selection moved
+     */
+    int advanceSelectionTo(int position) {
+        int steps = (wrap(position) - mActiveSelection + mSelectionCount) % mSelectionCount;
+        moveTarget(steps);
+        return steps;
+    }
+
+    private void moveTarget(int steps) {
+        if (steps == 0) {
+            return;
+        }
+        // A movement starting from rest draws its arcs from the resting
+        // marker; one that is still under way keeps its anchor and is only
+        // extended.
+        if (isAtRest()) {
+            mAnchorPosition = mPosition;
+        }
+        mTargetPosition += steps;
+        mActiveSelection = wrap(mTargetPosition);
+
+        // Set dial background color to green if selection is >= 1.
+        setDialColor(DialLayout.dialColor(mActiveSelection));
+    }
+
+    private int wrap(int position) {
+        return ((position % mSelectionCount) + mSelectionCount) % mSelectionCount;
+    }
+
+    /**
+     * Set the number of positions around the dial, from 1 up to
+     * {@link #MAX_SELECTION_COUNT}. The active selection is wrapped into the
+     * new count and the marker comes to rest on it.
+     *
+     * @return false if the count did not change
+     */
+    boolean setSelectionCount(int count) {
+        count = Math.max(1, Math.min(MAX_SELECTION_COUNT, count));
+        if (count == mSelectionCount) {
+            return false;
+        }
+        mSelectionCount = count;
+        int selection = wrap(mActiveSelection);
+        mActiveSelection = mTargetPosition = selection;
+        mPosition = mAnchorPosition = selection;
+        drawingStartAngle = DialLayout.START_DEGREES + selection * DialLayout.sectionDegrees(count);
+        sweepAngle = 0;
+        setDialColor(DialLayout.dialColor(selection));
+        computeGeometry();
+        mFullyDirty = true;
+        return true;
+    }
+
+    int getSelectionCount() {
+        return mSelectionCount;
+    }
+
+    /**
+     * @return the marker position the current movement ends at, in
+     * unwrapped selections as passed to {@link #applyPosition}
+     */
+    float getTargetPosition() {
+        return mTargetPosition;
+    }
+
+    /**
+     * @return the current marker position, in unwrapped selections
+     */
+    float getPosition() {
+        return mPosition;
+    }
+
+    boolean isAtRest() {
+        return mPosition == mTargetPosition;
+    }
+
+    /**
+     * Jump straight to the given position, without animating: the marker
+     * rests on it and the arcs are cleared.
+     *
+     * @param position Position index, wrapped into the selection count.
+     * @return false if the dial was already resting on that position
+     */
+    boolean jumpToSelection(int position) {
+        position = wrap(position);
+        if (position == mTargetPosition && isAtRest() && mAnchorPosition == position) {
+            return false;
+        }
+        mActiveSelection = mTargetPosition = position;
+        mAnchorPosition = position;
+        setDialColor(DialLayout.dialColor(position));
+        applyPosition(position);
+        return true;
+    }
+
+    /**
+     * Change the dial circle color. Static layers are cached per color, so
+     * this only selects which one draw() uses.
+     */
+    private void setDialColor(int color) {
+        if (mDialColor != color) {
+            mDialColor = color;
+            mFullyDirty = true;
+        }
+    }
+
+    /**
+     * Move the marker to the given position, anywhere between where the
+     * current movement started and {@link #getTargetPosition()}, and sweep
+     * the arcs from the start of the movement up to it.
+     *
+     * @param position Marker position, in unwrapped selections.
+     */
+    void applyPosition(float position) {
+        ensureGeometry();
+        final float oldStart = drawingStartAngle;
+        final float oldSweep = sweepAngle;
+        addDirtyDot(mMarkerPosX, mMarkerPosY);
+
+        mPosition = position;
+        final float section = DialLayout.sectionDegrees(mSelectionCount);
+        drawingStartAngle = DialLayout.START_DEGREES + mAnchorPosition * section;
+        sweepAngle = Math.min(360f, (position - mAnchorPosition) * section);
+        updateMarker(DialLayout.markerRadius(mRadius));
+
+        addDirtyDot(mMarkerPosX, mMarkerPosY);
+        if (oldStart != drawingStartAngle) {
+            // A new movement: the old arcs go, the new ones start.
+            addDirtyArcs(oldStart, oldSweep);
+            addDirtyArcs(drawingStartAngle, sweepAngle);
+        } else if (oldSweep != sweepAngle) {
+            // Only the ends of the arcs moved.
+            addDirtyArcs(oldStart + oldSweep, sweepAngle - oldSweep);
+        }
+    }
+
+    private void addDirtyDot(float x, float y) {
+        final float radius = DialLayout.DOT_RADIUS + 1;
+        mDirty.union(x - radius, y - radius, x + radius, y + radius);
+    }
+
+    /**
+     * Add the given stretch of both arcs, including their stroke and round
+     * caps, to the dirty region.
+     */
+    private void addDirtyArcs(float startAngle, float sweep) {
+        if (sweep == 0) {
+            return;
+        }
+        final float pad = DialLayout.ARC_STROKE_WIDTH / 2 + 1;
+        final float[] bounds = mBounds;
+        ArcBounds.compute(mWidth / 2, mHeight / 2, DialLayout.labelRadius(mRadius),
+                startAngle, sweep, false, bounds);
+        mDirty.union(bounds[ArcBounds.LEFT] - pad, bounds[ArcBounds.TOP] - pad,
+                bounds[ArcBounds.RIGHT] + pad, bounds[ArcBounds.BOTTOM] + pad);
+        ArcBounds.compute(mWidth / 2, mHeight / 2, DialLayout.markerRadius(mRadius),
+                startAngle, sweep, false, bounds);
+        mDirty.union(bounds[ArcBounds.LEFT] - pad, bounds[ArcBounds.TOP] - pad,
+                bounds[ArcBounds.RIGHT] + pad, bounds[ArcBounds.BOTTOM] + pad);
+    }
+
+    /**
+     * Hand out the area that changed since the last call, in drawing area
+     * pixels, and start collecting afresh. Callers pass it to
+     * invalidate(Rect) instead of redrawing everything.
+     *
+     * @param out receives the changed area; the whole drawing area when a
+     *            full redraw is needed
+     * @return false if nothing changed
+     */
+    boolean consumeDirtyRegion(Rect out) {
+        boolean dirty = mFullyDirty || !mDirty.isEmpty();
+        if (mFullyDirty) {
+            out.set(0, 0, (int) Math.ceil(mWidth), (int) Math.ceil(mHeight));
+        } else if (dirty) {
+            mDirty.roundOut(out);
+        }
+        mFullyDirty = false;
+        mDirty.setEmpty();
+        return dirty;
+    }
+
+    /**
+     * Place the marker dot for the current position: from the geometry
+     * table at rest, on the marker ring in between.
+     */
+    private void updateMarker(float markerRadius) {
+        if (isAtRest()) {
+            mMarkerPosX = mMarkerX[mActiveSelection];
+            mMarkerPosY = mMarkerY[mActiveSelection];
+        } else {
+            double angle = DialGeometry.START_ANGLE + mPosition * (double) mSectionAngle;
+            float[] xyData = computeXYForAngle(angle, markerRadius);
+            mMarkerPosX = xyData[0];
+            mMarkerPosY = xyData[1];
+        }
+    }
+
+    /**
+     * Set the size of the drawing area. The code determines the drawing
+     * bounds for the dial.
+     *
+     * @param w    Current width.
+     * @param h    Current height.
+     */
+    void setSize(int w, int h) {
+        // Calculate the radius from the width and height.
+        mWidth = w;
+        mHeight = h;
+        mRadius = DialLayout.radius(mWidth, mHeight);
+
+        final float labelRadius = DialLayout.labelRadius(mRadius);
+        final float markerRadius = DialLayout.markerRadius(mRadius);
+        mLabelRect.set(mWidth / 2 - labelRadius, mHeight / 2 - labelRadius,
+                mWidth / 2 + labelRadius, mHeight / 2 + labelRadius);
+        mMarkerRect.set(mWidth / 2 - markerRadius, mHeight / 2 - markerRadius,
+                mWidth / 2 + markerRadius, mHeight / 2 + markerRadius);
+        fillRectLines(mLabelRectLines, mLabelRect.left, mLabelRect.top,
+                mLabelRect.right, mLabelRect.bottom);
+        fillRectLines(mMarkerRectLines, mMarkerRect.left, mMarkerRect.top,
+                mMarkerRect.right, mMarkerRect.bottom);
+        fillRectLines(mBoundsLines, 0, 0, w, w);
+
+        computeGeometry();
+        if (mOwnsStyle) {
+            // Layers of the old size are no use; the shared style's owner
+            // drops them itself.
+            mStyle.dropLayers();
+        }
+        mFullyDirty = true;
+    }
+
+    /**
+     * Recycle the cached static layers if the style is not shared, once the
+     * view no longer draws them; they are re-created on the next draw. The
+     * owner of a shared style releases it with
+     * {@link DialStyle#releaseLayers()} instead.
+     */
+    void releaseStaticLayer() {
+        if (mOwnsStyle) {
+            mStyle.releaseLayers();
+        }
+    }
+
+    /**
+     * Rebuild the geometry table if the selection count changed since it
+     * was last computed.
+     */
+    private void ensureGeometry() {
+        if (mGeometryCount != mSelectionCount) {
+            computeGeometry();
+        }
+    }
+
+    /**
+     * Fill the geometry table and the tick buffer for the current size and
+     * selection count. This is the only place that runs trig for the
+     * resting positions; draw() and the animation only read the arrays.
+     */
+    private void computeGeometry() {
+        final int count = mSelectionCount;
+        if (mLabelX == null || mLabelX.length != count) {
+            mLabelX = new float[count];
+            mLabelY = new float[count];
+            mMarkerX = new float[count];
+            mMarkerY = new float[count];
+        }
+        mGeometryCount = count;
+        mSectionAngle = (float) DialGeometry.sectionAngle(count);
+
+        final float labelRadius = DialLayout.labelRadius(mRadius);
+        final float markerRadius = DialLayout.markerRadius(mRadius);
+        DialGeometry.fillPositions(count, labelRadius, mWidth / 2, mHeight / 2,
+                null, mLabelX, mLabelY);
+        DialGeometry.fillPositions(count, markerRadius, mWidth / 2, mHeight / 2,
+                null, mMarkerX, mMarkerY);
+
+        // Thin out labels, with their guide circles, that would overlap at
+        // this size, and ticks closer than a few pixels.
+        mLabelStride = DialLayout.labelStride(count, mRadius, mStyle.maxLabelWidth(count));
+        mTickLineCount = 0;
+        if (mLabelStride > 1) {
+            int tickStride = DialLayout.tickStride(count, mRadius);
+            int size = 4 * (count / tickStride + 1);
+            if (mTickLines == null || mTickLines.length < size) {
+                mTickLines = new float[size];
+            }
+            mTickLineCount = DialLayout.fillTicks(count, tickStride, mLabelStride,
+                    mRadius, mWidth / 2, mHeight / 2, mTickLines);
+        }
+
+        updateMarker(markerRadius);
+    }
+
+    /**
+     * Render the dial: the cached static layer (dial, labels, guide
+     * circles and bounding boxes), then the animated marker and arcs.
+     * The position of the indicator is based on mActiveSelection.
+     *
+     * @param canvas the canvas on which the background will be drawn
+     */
+    void draw(Canvas canvas) {
+        ensureGeometry();
+        if (mWidth <= 0 || mHeight <= 0) {
+            return;
+        }
+
+        final DialStyle style = mStyle;
+        final int width = (int) mWidth;
+        final int height = (int) mHeight;
+        final int count = mSelectionCount;
+        Bitmap staticLayer = style.findLayer(width, height, count, mDialColor);
+        if (staticLayer == null) {
+            drawStaticLayer(style.createLayer(width, height, count, mDialColor));
+            staticLayer = style.findLayer(width, height, count, mDialColor);
+        }
+        canvas.drawBitmap(staticLayer, 0, 0, null);
+
+        // Draw the indicator mark and the arcs swept by the animation.
+        canvas.drawCircle(mMarkerPosX, mMarkerPosY, DialLayout.DOT_RADIUS, style.mAnimPaint);
+        canvas.drawArc(mLabelRect, drawingStartAngle, sweepAngle, false, style.mLabelArcPaint);
+        canvas.drawArc(mMarkerRect, drawingStartAngle, sweepAngle, false, style.mMarkerArcPaint);
+    }
+
+    /**
+     * Draw the parts of the dial that do not move: an outer circle to serve
+     * as the "dial", the tick marks, the numbered labels, the guide circles
+     * and the debug bounding boxes.
+     *
+     * @param canvas the canvas backing the static layer bitmap
+     */
+    private void drawStaticLayer(Canvas canvas) {
+        final DialStyle style = mStyle;
+
+        // Draw the dial.
+        canvas.drawCircle(mWidth / 2, mHeight / 2, mRadius, style.mDialPaint);
+        if (mTickLineCount > 0) {
+            canvas.drawLines(mTickLines, 0, mTickLineCount, style.mTickPaint);
+        }
+
+        // Draw the text labels.
+        final float labelRadius = DialLayout.labelRadius(mRadius);
+        canvas.drawCircle(mWidth / 2, mHeight / 2, labelRadius, style.mGuidePaint);
+
+        final int count = mSelectionCount;
+        final int stride = mLabelStride;
+        for (int i = 0; i < count; i += stride) {
+            if (!DialGeometry.isOnStride(i, stride, count)) {
+                continue;
+            }
+            float x = mLabelX[i];
+            float y = mLabelY[i];
+            style.drawLabel(canvas, i, x, y + DialLayout.TEXT_BASELINE_OFFSET);
+            canvas.drawCircle(x, y, DialLayout.DOT_RADIUS, style.mGuidePaint);
+        }
+
+        // Draw the ring the indicator travels on.
+        final float markerRadius = DialLayout.markerRadius(mRadius);
+        canvas.drawCircle(mWidth / 2, mHeight / 2, markerRadius, style.mGuidePaint);
+
+        canvas.drawLines(mMarkerRectLines, style.mTextPaint);
+        canvas.drawLines(mLabelRectLines, style.mTextPaint);
+        canvas.drawLines(mBoundsLines, style.mTextPaint);
+    }
+
+    /**
+     * Fill a 16-element drawLines() buffer with the four edges of a rectangle.
+     */
+    private static void fillRectLines(float[] lines, float left, float top, float right, float bottom) {
+        lines[0] = left;   lines[1] = top;     lines[2] = right;  lines[3] = top;
+        lines[4] = right;  lines[5] = top;     lines[6] = right;  lines[7] = bottom;
+        lines[8] = right;  lines[9] = bottom;  lines[10] = left;  lines[11] = bottom;
+        lines[12] = left;  lines[13] = bottom; lines[14] = left;  lines[15] = top;
+    }
+
+    /**
+     * Compute the X/Y-coordinates of the point at the given angle on a ring
+     * of the given radius around the centre.
+     *
+     * @return 2-element scratch array, valid until the next call. Element 0
+     * is X-coordinate, element 1 is Y-coordinate.
+     */
+    private float[] computeXYForAngle(final double angle, final float radius) {
+        float[] result = mTempResult;
+        DialGeometry.computeXYForAngle(angle, radius, mWidth / 2, mHeight / 2, result);
+        return result;
+    }
+}
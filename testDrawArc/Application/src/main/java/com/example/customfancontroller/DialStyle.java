@@ -0,0 +1,223 @@
+/*
+ * Copyright (C) 2017 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.customfancontroller;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+
+import com.example.customfancontroller.chartmath.DialLayout;
+
+import java.util.ArrayList;
+
+/**
+ * Paints, label glyphs and static layer bitmaps used to draw dials. One style
+ * can be shared by any number of {@link DialRenderer}s, as
+ * {@link DialBoardView} does, so that dials of the same size, selection
+ * count and color draw the same cached bitmap instead of each keeping
+ * their own. A style must only be used from one thread at a time.
+ */
+class DialStyle {
+
+    // Static layers kept by default; the least recently used is dropped.
+    static final int DEFAULT_MAX_LAYERS = 4;
+
+    final Paint mTextPaint;                  // For text in the view.
+    final Paint mDialPaint;                  // For dial circle, recolored per layer.
+    final Paint mAnimPaint;                  // For the indicator mark.
+    final Paint mGuidePaint;                 // For the thin guide circles.
+    final Paint mTickPaint;                  // For the tick marks.
+    final Paint mLabelArcPaint;              // For the arc on the label ring.
+    final Paint mMarkerArcPaint;             // For the arc on the marker ring.
+
+    // Digits of the label being drawn; position numbers are formatted into
+    // it on the fly, so no per-position text is kept however many there are.
+    private final char[] mLabelChars = new char[11];
+
+    // Pre-rendered label digits in the text paint's font.
+    private GlyphAtlas mLabelAtlas;
+    private final RectF mGlyphRect = new RectF();
+
+    // Cached static layers, most recently used last.
+    private final ArrayList<Layer> mLayers = new ArrayList<Layer>(DEFAULT_MAX_LAYERS);
+    private int mMaxLayers = DEFAULT_MAX_LAYERS;
+    private final Canvas mLayerCanvas = new Canvas();
+
+    private static class Layer {
+        int width;
+        int height;
+        int count;
+        int color;
+        Bitmap bitmap;
+    }
+
+    DialStyle() {
+        // Paint styles used for rendering are created here. This
+        // is a performance optimization, since draw() is called
+        // for every screen refresh.
+        // Labels are glyph blits at sub-pixel positions, so filter them.
+        mTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.FILTER_BITMAP_FLAG);
+        mTextPaint.setColor(DialLayout.TEXT_COLOR);
+        mTextPaint.setStyle(Paint.Style.FILL_AND_STROKE);
+        mTextPaint.setTextAlign(Paint.Align.CENTER);
+        mTextPaint.setTextSize(DialLayout.TEXT_SIZE);
+        mDialPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mDialPaint.setColor(DialLayout.DIAL_COLOR_OFF);
+
+        mAnimPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mAnimPaint.setColor(DialLayout.MARKER_COLOR);
+        mAnimPaint.setStyle(Paint.Style.FILL_AND_STROKE);
+        mAnimPaint.setTextAlign(Paint.Align.CENTER);
+        mAnimPaint.setTextSize(DialLayout.TEXT_SIZE);
+
+        mGuidePaint = new Paint();
+        mGuidePaint.setStyle(Paint.Style.STROKE);
+        mGuidePaint.setStrokeCap(Paint.Cap.ROUND);
+        mGuidePaint.setStrokeWidth(DialLayout.GUIDE_STROKE_WIDTH);
+        mGuidePaint.setColor(DialLayout.GUIDE_COLOR);
+
+        mTickPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mTickPaint.setStrokeWidth(DialLayout.TICK_STROKE_WIDTH);
+        mTickPaint.setColor(DialLayout.TEXT_COLOR);
+
+        mLabelArcPaint = createArcPaint(DialLayout.LABEL_ARC_COLOR);
+        mMarkerArcPaint = createArcPaint(DialLayout.MARKER_ARC_COLOR);
+    }
+
+    private Paint createArcPaint(int color) {
+        Paint paint = new Paint();
+        paint.setStyle(Paint.Style.STROKE);
+        paint.setStrokeCap(Paint.Cap.ROUND);
+        paint.setStrokeWidth(DialLayout.ARC_STROKE_WIDTH);
+        paint.setColor(color);
+        return paint;
+    }
+
+    /**
+     * @return the width of the widest label of a dial with {@code count}
+     * positions
+     */
+    float maxLabelWidth(int count) {
+        return mTextPaint.measureText(String.valueOf(Math.max(0, count - 1)));
+    }
+
+    /**
+     * Draw the label of the given position centred on x with its baseline
+     * at y, from the shared glyph atlas rather than by shaping the text.
+     */
+    void drawLabel(Canvas canvas, int position, float x, float y) {
+        if (mLabelAtlas == null || !mLabelAtlas.matches(mTextPaint)) {
+            mLabelAtlas = GlyphAtlas.obtain(mTextPaint);
+        }
+        final char[] chars = mLabelChars;
+        int start = chars.length;
+        do {
+            chars[--start] = (char) ('0' + position % 10);
+            position /= 10;
+        } while (position > 0);
+        mLabelAtlas.drawText(canvas, chars, start, chars.length - start, x, y, mTextPaint, mGlyphRect);
+    }
+
+    /**
+     * @return the cached static layer for the given key, or null if the
+     * caller has to draw one with {@link #createLayer}
+     */
+    Bitmap findLayer(int width, int height, int count, int color) {
+        final ArrayList<Layer> layers = mLayers;
+        for (int i = layers.size() - 1; i >= 0; i--) {
+            Layer layer = layers.get(i);
+            if (layer.width == width && layer.height == height
+                    && layer.count == count && layer.color == color) {
+                if (i != layers.size() - 1) {
+                    layers.remove(i);
+                    layers.add(layer);
+                }
+                return layer.bitmap;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Create and cache an empty static layer for the given key, evicting the
+     * least recently used one if the cache is full. The bitmap of an evicted
+     * layer of the same size is cleared and reused; only a layer of another
+     * size allocates one. The dial paint is set to {@code color}.
+     *
+     * @return a canvas drawing into the new layer, valid until the next call
+     */
+    Canvas createLayer(int width, int height, int count, int color) {
+        Layer layer;
+        if (mLayers.size() >= mMaxLayers) {
+            layer = mLayers.remove(0);
+        } else {
+            layer = new Layer();
+        }
+        if (layer.bitmap != null && layer.width == width && layer.height == height) {
+            layer.bitmap.eraseColor(0);
+        } else {
+            // Left to the garbage collector rather than recycled: a display
+            // list recorded earlier in this frame may still draw it.
+            layer.bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        }
+        layer.width = width;
+        layer.height = height;
+        layer.count = count;
+        layer.color = color;
+        mLayers.add(layer);
+        mDialPaint.setColor(color);
+        mLayerCanvas.setBitmap(layer.bitmap);
+        return mLayerCanvas;
+    }
+
+    /**
+     * Set how many static layers are kept. A style shared by dials that
+     * draw more distinct layers than it keeps would evict and redraw one on
+     * every frame, so its owner sizes it to the keys in use. Surplus layers
+     * are dropped, least recently used first, without recycling them.
+     */
+    void setMaxLayers(int maxLayers) {
+        mMaxLayers = Math.max(1, maxLayers);
+        while (mLayers.size() > mMaxLayers) {
+            mLayers.remove(0);
+        }
+    }
+
+    /**
+     * Forget every cached static layer without recycling it, for when they
+     * are of no further use but may still be referenced by a display list
+     * of the current frame. They are re-created on the next draw.
+     */
+    void dropLayers() {
+        mLayers.clear();
+        mLayerCanvas.setBitmap(null);
+    }
+
+    /**
+     * Recycle every cached static layer; they are re-created on the next
+     * draw. Only call this once nothing can draw them any more, as when the
+     * view is detached.
+     */
+    void releaseLayers() {
+        for (int i = 0; i < mLayers.size(); i++) {
+            mLayers.get(i).bitmap.recycle();
+        }
+        mLayers.clear();
+        mLayerCanvas.setBitmap(null);
+    }
+}
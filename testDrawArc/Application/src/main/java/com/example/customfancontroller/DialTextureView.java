@@ -0,0 +1,120 @@
+package com.example.customfancontroller;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.util.AttributeSet;
+import android.view.View;
+
+import com.example.customfancontroller.chartmath.AnimatedValues;
+
+/**
+ * Render-thread variant of {@link DialView}: the same dial, clicked the same
+ * way, but drawn and animated on a dedicated render thread into a
+ * TextureView surface, so the UI thread only forwards clicks.
+ */
+public class DialTextureView extends TextureRenderView {
+
+    // Render thread state.
+    private final DialRenderer mRenderer = new DialRenderer();
+    private final AnimatedValues mArc = new AnimatedValues(1); // Marker position.
+    private long mLastFrameTime = -1;        // -1 when no arc animation runs.
+
+    public DialTextureView(Context context) {
+        super(context);
+        init();
+    }
+
+    public DialTextureView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        init();
+    }
+
+    public DialTextureView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        init();
+    }
+
+    private void init() {
+        // Rotates between each of the different selection
+        // states on each click.
+        setOnClickListener(new OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                queueEvent(new Runnable() {
+                    @Override
+                    public void run() {
+                        mRenderer.advanceSelection();
+                        startArc(1000);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Animate the marker and the arcs from where they are now to the active
+     * selection, taking {@code duration} for every position on the way. A
+     * running animation is retargeted in place rather than restarted.
+     */
+    public void animateArc(final long duration) {
+        queueEvent(new Runnable() {
+            @Override
+            public void run() {
+                startArc(duration);
+            }
+        });
+    }
+
+    /**
+     * Set the number of positions around this dial, as
+     * {@link DialView#setSelectionCount(int)} does.
+     */
+    public void setSelectionCount(final int count) {
+        queueEvent(new Runnable() {
+            @Override
+            public void run() {
+                if (mRenderer.setSelectionCount(count)) {
+                    mArc.snapTo(0, mRenderer.getPosition());
+                    requestRender();
+                }
+            }
+        });
+    }
+
+    private void startArc(long duration) {
+        float target = mRenderer.getTargetPosition();
+        float distance = Math.abs(target - mArc.get(0));
+        mArc.animateTo(0, target, duration * distance, AnimatedValues.CURVE_LINEAR);
+        requestRender();
+    }
+
+    @Override
+    protected void onRenderSizeChanged(int width, int height) {
+        mRenderer.setSize(width, height);
+    }
+
+    @Override
+    protected boolean onRenderFrame(long frameTimeMillis) {
+        if (mArc.isAtRest() && mLastFrameTime < 0) {
+            return false;
+        }
+        long elapsed = mLastFrameTime < 0 ? 0 : frameTimeMillis - mLastFrameTime;
+        mLastFrameTime = frameTimeMillis;
+        boolean moving = mArc.step(elapsed);
+        mRenderer.applyPosition(mArc.get(0));
+        if (!moving) {
+            mLastFrameTime = -1;
+        }
+        return moving;
+    }
+
+    @Override
+    protected void onRender(Canvas canvas) {
+        mRenderer.draw(canvas);
+    }
+
+    @Override
+    protected void onRenderRelease() {
+        mRenderer.releaseStaticLayer();
+    }
+}
@@ -16,48 +16,58 @@
 
 package com.example.customfancontroller;
 
-import android.animation.ValueAnimator;
 import android.content.Context;
 import android.graphics.Canvas;
-import android.graphics.Color;
-import android.graphics.Paint;
-import android.graphics.RectF;
+import android.graphics.Rect;
 import android.util.AttributeSet;
 import android.view.View;
-import android.view.animation.LinearInterpolator;
+
+import com.example.customfancontroller.chartmath.AnimatedValues;
 
 /**
  * Custom view renders a multi-position "dial". Each click advances to the
  * next dial position. Initially set to 4 selections (0-3):
  * 0 = Off, 1 = Low, 2 = Medium, 3 = High.
+ * The drawing itself is done by a {@link DialRenderer}.
  */
 
 public class DialView extends View {
 
-    private static int SELECTION_COUNT = 12;  //4;  // Total number of selections.
-
-    double mRadian = (2 * Math.PI) / SELECTION_COUNT;  // 1/SELECTION_COUNT
-
-    private float mWidth;                    // Custom view width.
-    private float mHeight;                   // Custom view height.
-    private Paint mTextPaint;                // For text in the view.
-    private Paint mDialPaint;                // For dial circle in the view.
-
-    private Paint mAnimPaint;
+    private DialRenderer mRenderer;          // Draws the dial and holds its state.
+    private LatestValueSlot mSelectionSlot;  // Newest streamed selection.
+    private ChartFrameMetrics mFrameMetrics; // Null unless instrumented.
+    private final Rect mDirtyRect = new Rect();
 
-    private float mRadius;                   // Radius of the dial.
-    private int mActiveSelection;            // The active selection.
+    // Animated marker position, in the renderer's unwrapped selections, and
+    // the frame time of its previous step, or -1 when it is not moving.
+    // There is only ever this one animation: new selections retarget it.
+    private final AnimatedValues mArc = new AnimatedValues(1);
+    private long mLastFrameTime = -1;
 
-    private int mLastSelection;              // The last selection.
-
-    private double animAngle;
-    float drawingStartAngle;  //the drawing start angle
-    float currentStartAngle;  //the current marker start point/angle (not the drawing start angle)
-    float sweepAngle;
-
-    // String buffer for dial labels and float for ComputeXY result.
-    private final StringBuffer mTempLabel = new StringBuffer(8);
-    private final float[] mTempResult = new float[2];
+    /**
+     * Steps the marker animation by the time elapsed since the previous
+     * frame, on the shared {@link ChartFrameClock}, until it arrives.
+     */
+    private final ChartFrameClock.FrameCallback mArcAnimator = new ChartFrameClock.FrameCallback() {
+        @Override
+        public boolean doFrame(long frameTimeMillis) {
+            final ChartFrameMetrics metrics = mFrameMetrics;
+            final long start = metrics != null ? metrics.begin() : 0;
+            long elapsed = mLastFrameTime < 0 ? 0 : frameTimeMillis - mLastFrameTime;
+            mLastFrameTime = frameTimeMillis;
+
+            boolean needNewFrame = mArc.step(elapsed);
+            mRenderer.applyPosition(mArc.get(0));
+            if (metrics != null) {
+                metrics.endTick(start);
+            }
+            if (!needNewFrame) {
+                mLastFrameTime = -1;
+            }
+            invalidateChanged();
+            return needNewFrame;
+        }
+    };
 
     /**
      * Standard constructor.
@@ -100,39 +110,16 @@ public class DialView extends View {
      * Helper method to initialize instance variables. Called by constructors.
      */
     private void init() {
-        // Paint styles used for rendering are created here. This
-        // is a performance optimization, since onDraw() is called
-        // for every screen refresh.
-        mTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-        mTextPaint.setColor(Color.BLACK);
-        mTextPaint.setStyle(Paint.Style.FILL_AND_STROKE);
-        mTextPaint.setTextAlign(Paint.Align.CENTER);
-        mTextPaint.setTextSize(40f);
-        mDialPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-        mDialPaint.setColor(Color.GRAY);
-
-        mAnimPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-        mAnimPaint.setColor(Color.RED);
-        mAnimPaint.setStyle(Paint.Style.FILL_AND_STROKE);
-        mAnimPaint.setTextAlign(Paint.Align.CENTER);
-        mAnimPaint.setTextSize(40f);
-
-        // Initialize current selection (where the dial's "indicator" is
-        // pointing).
-
-        mLastSelection = mActiveSelection = 0;
-
-        Double baseAngle = 9 * mRadian; // Angles are in radians.
-        Double oldMarkAngle = baseAngle + (mLastSelection * (2 * (Math.PI / SELECTION_COUNT)));
-        Double newMarkAngle = baseAngle + (mActiveSelection * (2 * (Math.PI / SELECTION_COUNT)));
-
-        //float drawingStartAngle = (mLastSelection * (360 / SELECTION_COUNT));
-        //float endAngle = (mActiveSelection * (360 / SELECTION_COUNT));
-
-        animAngle = newMarkAngle;
-        drawingStartAngle = (9 * (360 / SELECTION_COUNT));
-        currentStartAngle = drawingStartAngle;
-        sweepAngle = 0;
+        mRenderer = new DialRenderer();
+        mSelectionSlot = new LatestValueSlot(this, new Runnable() {
+            @Override
+            public void run() {
+                if (mRenderer.jumpToSelection(mSelectionSlot.getInt())) {
+                    mArc.snapTo(0, mRenderer.getPosition());
+                    invalidateChanged();
+                }
+            }
+        });
 
         // Set up onClick listener for this view.
         // Rotates between each of the different selection
@@ -140,79 +127,119 @@ public class DialView extends View {
         setOnClickListener(new OnClickListener() {
             @Override
             public void onClick(View view) {
-                // Rotate selection forward to the next valid choice.
-                mActiveSelection = (mActiveSelection + 1) % SELECTION_COUNT;
+                mRenderer.advanceSelection();
 
                 animateArc(1000);
 
-                // Set dial background color to green if selection is >= 1.
-                if (mActiveSelection >= 1) {
-                    mDialPaint.setColor(Color.GREEN);
-                } else {
-                    mDialPaint.setColor(Color.GRAY);
-                }
-                // Redraw the view.
-                invalidate();
-
-
+                // Redraw whatever the new selection changed right away,
+                // such as the dial color; the animation does the rest.
+                invalidateChanged();
             }
         });
     }
 
-    //TEST_ML===<
-    public void animateArc(long duration){
-
-        final ValueAnimator valueAnimator = ValueAnimator.ofFloat(0f, 1f);
-        valueAnimator.setInterpolator(new LinearInterpolator());
-        valueAnimator.setDuration(duration);
-
-        valueAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-
-                Double baseAngle = 9 * mRadian; // Angles are in radians.
-                Double oldMarkAngle = baseAngle + (mLastSelection * (2 * (Math.PI / SELECTION_COUNT)));
-                Double newMarkAngle = baseAngle + (mActiveSelection * (2 * (Math.PI / SELECTION_COUNT)));
-
-                Float val = (Float)animation.getAnimatedValue();
-                float oneSectionRadius = (float)(2 * (Math.PI / SELECTION_COUNT));
+    /**
+     * Publish a new selection from any thread. Samples are coalesced: the
+     * dial jumps to the newest one at most once per frame.
+     *
+     * @param position Position index, wrapped into the selection count.
+     */
+    public void publishSelection(int position) {
+        mSelectionSlot.publish(position);
+    }
 
-                //Log.w("+++","+++ onAnimationUpdate()., animation.getAnimatedValue(): "+val+", oneSectionRadius:"+oneSectionRadius+", animAngle:"+animAngle);
+    /**
+     * Animate the selection forward to the given position, through every
+     * position on the way, like that many clicks would.
+     *
+     * @param position Position index, wrapped into the selection count.
+     */
+    public void animateToSelection(int position) {
+        if (mRenderer.advanceSelectionTo(position) > 0) {
+            animateArc(1000);
+            invalidateChanged();
+        }
+    }
 
-                if (val >= 1) {
-                    mLastSelection = mActiveSelection;
-                    animAngle = newMarkAngle;
+    /**
+     * Animate the marker and the arcs from where they are now to the active
+     * selection, taking {@code duration} for every position on the way. An
+     * animation that is already running is retargeted in place, so rapid
+     * clicks extend it instead of starting another one, and each costs the
+     * same however many arrive.
+     */
+    public void animateArc(long duration){
+        float target = mRenderer.getTargetPosition();
+        float distance = Math.abs(target - mArc.get(0));
+        mArc.animateTo(0, target, duration * distance, AnimatedValues.CURVE_LINEAR);
+        ChartFrameClock.getInstance().add(mArcAnimator);
+    }
 
-                    currentStartAngle = drawingStartAngle + 360 / SELECTION_COUNT;  //keep the start drawing angle, but update the new marker position angle
+    /**
+     * Set the number of positions around this dial, from 1 up to 3600; the
+     * default is 12. Each dial has its own count, so fine-grained gauges
+     * and 12-position dials can be used side by side. Labels and tick marks
+     * that would be too close together at the view's size are thinned out.
+     * The marker comes to rest on the active selection, wrapped into the
+     * new count.
+     */
+    public void setSelectionCount(int count) {
+        if (mRenderer.setSelectionCount(count)) {
+            mArc.snapTo(0, mRenderer.getPosition());
+            invalidateChanged();
+        }
+    }
 
-                    // for clear the anim result, set the start point at anim end
-//                    drawingStartAngle = drawingStartAngle + (360 / SELECTION_COUNT);
-//                    sweepAngle = 0;
-                } else {
+    public int getSelectionCount() {
+        return mRenderer.getSelectionCount();
+    }
 
-                    // keep to anim final result, set the start drawing angle at anim beginning
-                    if (currentStartAngle != drawingStartAngle) {
-                        drawingStartAngle = currentStartAngle;
-                    }
+    /**
+     * Record frame timings of this view into {@code metrics}, or stop with
+     * null.
+     */
+    public void setFrameMetrics(ChartFrameMetrics metrics) {
+        mFrameMetrics = metrics;
+    }
 
-                    animAngle = oldMarkAngle + oneSectionRadius * val;
-                    sweepAngle = ((360 / SELECTION_COUNT) * val);
+    public ChartFrameMetrics getFrameMetrics() {
+        return mFrameMetrics;
+    }
 
-                    //Log.d("+++","+++ onAnimationUpdate(),  animAngle:"+animAngle+", oldMarkAngle:"+oldMarkAngle+", newMarkAngle:"+newMarkAngle);
+    @Override
+    public void invalidate() {
+        final ChartFrameMetrics metrics = mFrameMetrics;
+        if (metrics != null) {
+            metrics.recordInvalidate();
+        }
+        super.invalidate();
+    }
 
-                }
-                invalidate();
-            }
-        });
+    @Override
+    public void invalidate(int l, int t, int r, int b) {
+        final ChartFrameMetrics metrics = mFrameMetrics;
+        if (metrics != null) {
+            metrics.recordInvalidate();
+        }
+        super.invalidate(l, t, r, b);
+    }
 
-        valueAnimator.start();
+    /**
+     * Invalidate only the part of the dial the renderer changed since the
+     * last frame: the stretch the arcs grew by and the old and new marker
+     * dot, or the whole view when the dial color or size changed.
+     */
+    private void invalidateChanged() {
+        final Rect dirty = mDirtyRect;
+        if (mRenderer.consumeDirtyRegion(dirty)) {
+            invalidate(dirty.left, dirty.top, dirty.right, dirty.bottom);
+        }
     }
-    //==========>
 
     /**
      * This is called during layout when the size of this view has changed. If
      * the view was just added to the view hierarchy, it is called with the old
-     * values of 0. The code determines the drawing bounds for the custom view.
+     * values of 0. The renderer determines the drawing bounds from it.
      *
      * @param w    Current width of this view.
      * @param h    Current height of this view.
@@ -221,161 +248,39 @@ public class DialView extends View {
      */
     @Override
     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
-        // Calculate the radius from the width and height.
-        mWidth = w;
-        mHeight = h;
-        mRadius = (float) (Math.min(mWidth, mHeight) / 2 * 0.8);
+        mRenderer.setSize(w, h);
     }
 
-    /**
-     * Render view content: an outer grey circle to serve as the "dial",
-     * and a smaller black circle to server as the indicator.
-     * The position of the indicator is based on mActiveSelection.
-     *
-     * @param canvas the canvas on which the background will be drawn
-     */
     @Override
-    protected void onDraw(Canvas canvas) {
-        super.onDraw(canvas);
-        // Draw the dial.
-        canvas.drawCircle(mWidth / 2, mHeight / 2, mRadius, mDialPaint);
-
-        // Draw the text labels.
-        final float labelRadius = mRadius + 20;
-        drawCircle(canvas, mWidth / 2, mHeight / 2, labelRadius);
-
-        int textDelta = 12;
-        StringBuffer label = mTempLabel;
-        for (int i = 0; i < SELECTION_COUNT; i++) {
-            float[] xyData = computeXYForPosition(i, labelRadius);
-            float x = xyData[0];
-            float y = xyData[1];
-            label.setLength(0);
-            label.append(i);
-            canvas.drawText(label, 0, label.length(), x, y+textDelta, mTextPaint);
-            drawCircle(canvas, x, y, 20);
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        mSelectionSlot.onAttachedToWindow();
+        if (!mArc.isAtRest()) {
+            ChartFrameClock.getInstance().add(mArcAnimator);
         }
-
-        // Draw the indicator mark
-        final float markerRadius = mRadius - 35;
-        drawCircle(canvas, mWidth / 2, mHeight / 2, markerRadius);
-
-
-//        float[] xyData = computeXYForPosition(mActiveSelection, markerRadius);
-//        float x = xyData[0];
-//        float y = xyData[1];
-//        canvas.drawCircle(x, y, 20, mTextPaint);
-
-        //TEST_ML===<
-
-        float[]  xyData = computeXYForAngle(animAngle, markerRadius);
-        float x = xyData[0];
-        float y = xyData[1];
-        canvas.drawCircle(x, y, 20, mAnimPaint);
-
-        //==========>
-        RectF rectF = new RectF();
-        float l1 = mWidth / 2 - (labelRadius);
-        float t1 = mHeight / 2 - (labelRadius);
-        //rectF.set(strokeWidth, strokeWidth,getWidth() - strokeWidth  ,getWidth() - strokeWidth);
-        rectF.set(l1, t1,mWidth / 2 + (labelRadius)  ,mHeight / 2 + (labelRadius));
-
-        drawArc(canvas, drawingStartAngle, sweepAngle, rectF, Color.GRAY);
-
-        float l = mWidth / 2 - (mRadius - 35);
-        float t = mHeight / 2 - (mRadius - 35);
-
-        RectF rectF2 = new RectF();
-        //rectF2.set(l, t, mWidth/2 + (mRadius - 35)  ,mWidth/2 + (mRadius - 35));
-        rectF2.set(l, t, mWidth/2 + (mRadius - 35)  ,mHeight/2 + (mRadius - 35));
-        float[] lines3 = {rectF2.left, rectF2.top, rectF2.right, rectF2.top,
-                rectF2.right, rectF2.top, rectF2.right, rectF2.bottom,
-                rectF2.right, rectF2.bottom, rectF2.left, rectF2.bottom,
-                rectF2.left, rectF2.bottom, rectF2.left, rectF2.top
-        };
-        canvas.drawLines(lines3, mTextPaint);
-
-        drawArc(canvas, drawingStartAngle, sweepAngle, rectF2, Color.BLUE);
-        //canvas.drawArc(rectF, 0, currentAngle, false, paint);
-
-        float[] lines = {rectF.left, rectF.top, rectF.right, rectF.top,
-                         rectF.right, rectF.top, rectF.right, rectF.bottom,
-                         rectF.right, rectF.bottom, rectF.left, rectF.bottom,
-                         rectF.left, rectF.bottom, rectF.left, rectF.top
-                        };
-        canvas.drawLines(lines, mTextPaint);
-
-
-        rectF.set(0,0, getWidth(), getWidth());
-        float[] lines2 = {rectF.left, rectF.top, rectF.right, rectF.top,
-                rectF.right, rectF.top, rectF.right, rectF.bottom,
-                rectF.right, rectF.bottom, rectF.left, rectF.bottom,
-                rectF.left, rectF.bottom, rectF.left, rectF.top
-        };
-        canvas.drawLines(lines2, mTextPaint);
-
-//        ///
-//        Paint paint = new Paint();
-//        paint.setColor(Color.RED);
-//        canvas.drawLine(0, 0, 100, 100, paint);
-//        canvas.drawLine(100, 100, 200, 20, paint);
-//        ///
     }
 
-    //TEST_ML===<
-    private int strokeWidth = 15;
-    private void drawArc(Canvas canvas, float startAngle, float sweepAngle, RectF rectF, int color) {
-        Paint paint = new Paint();
-        paint.setStyle(Paint.Style.STROKE);
-        paint.setStrokeCap(Paint.Cap.ROUND);
-        paint.setStrokeWidth(strokeWidth);
-        paint.setColor(color);
-        canvas.drawArc(rectF, startAngle, sweepAngle,false,paint);
-    }
-
-    private void drawCircle(Canvas canvas, float cx, float cy, float radius) {
-        Paint paint = new Paint();
-        paint.setStyle(Paint.Style.STROKE);
-        paint.setStrokeCap(Paint.Cap.ROUND);
-        paint.setStrokeWidth(1);
-        paint.setColor(Color.BLUE);
-        canvas.drawCircle(cx, cy, radius, paint);
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        ChartFrameClock.getInstance().remove(mArcAnimator);
+        mLastFrameTime = -1;
+        mRenderer.releaseStaticLayer();
     }
-    //==========>
 
     /**
-     * Compute the X/Y-coordinates for a label or indicator,
-     * given the position number and radius
-     * where the label should be drawn.
+     * Render view content through the renderer.
      *
-     * @param pos Zero based position index
-     * @param radius Radius where label/indicator is to be drawn.
-     * @return 2-element array. Element 0 is X-coordinate, element 1 is Y-coordinate.
+     * @param canvas the canvas on which the background will be drawn
      */
-    private float[] computeXYForPosition_old(final int pos, final float radius) {
-        float[] result = mTempResult;
-        Double startAngle = Math.PI * (9 / 8d);   // Angles are in radians.
-        Double angle = startAngle + (pos * (Math.PI / 4));
-        result[0] = (float) (radius * Math.cos(angle)) + (mWidth / 2);
-        result[1] = (float) (radius * Math.sin(angle)) + (mHeight / 2);
-        return result;
-    }
-
-    private float[] computeXYForPosition(final int pos, final float radius) {
-        float[] result = mTempResult;
-        Double startAngle = 9 * mRadian; // Angles are in radians.
-        Double angle = startAngle + (pos * (2 * (Math.PI / SELECTION_COUNT)));
-        result[0] = (float) (radius * Math.cos(angle)) + (mWidth / 2);
-        result[1] = (float) (radius * Math.sin(angle)) + (mHeight / 2);
-        return result;
-    }
-
-    ///
-    private float[] computeXYForAngle(final Double angle, final float radius) {
-        float[] result = mTempResult;
-        result[0] = (float) (radius * Math.cos(angle)) + (mWidth / 2);
-        result[1] = (float) (radius * Math.sin(angle)) + (mHeight / 2);
-        return result;
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        final ChartFrameMetrics metrics = mFrameMetrics;
+        final long start = metrics != null ? metrics.begin() : 0;
+        mRenderer.draw(canvas);
+        if (metrics != null) {
+            metrics.endDraw(start);
+        }
     }
-    ///
 }
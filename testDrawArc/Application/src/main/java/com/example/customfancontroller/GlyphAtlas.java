@@ -0,0 +1,176 @@
+package com.example.customfancontroller;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.Typeface;
+
+import java.util.ArrayList;
+
+/**
+ * Pre-rendered digits, '%' and '-' of one font, so number labels are drawn
+ * as bitmap blits instead of being shaped by drawText() every frame. An
+ * atlas is built for the typeface, style, stroke width and text size of a
+ * paint. The glyphs are an alpha mask: the color comes from the paint they
+ * are drawn with, so one atlas serves every color of that font.
+ *
+ * Atlases are shared by all views and threads through {@link #obtain},
+ * which keeps the few most recently used fonts. An atlas never changes
+ * once built; evicted ones are left to the garbage collector rather than
+ * recycled, as another thread may still be drawing from them.
+ */
+public final class GlyphAtlas {
+
+    private static final String GLYPHS = "0123456789%-";
+    private static final int PAD = 2;        // Room around each glyph for overhang.
+
+    // Atlases kept at most; the least recently used is dropped.
+    private static final int MAX_ATLASES = 4;
+    private static final ArrayList<GlyphAtlas> sAtlases = new ArrayList<GlyphAtlas>(MAX_ATLASES); // Guarded by sAtlases.
+
+    // The font the glyphs were rendered with.
+    private final Typeface mTypeface;
+    private final Paint.Style mStyle;
+    private final float mStrokeWidth;
+    private final float mTextSize;
+
+    private final Bitmap mBitmap;
+    private final Rect[] mGlyphBounds;       // Cell of every glyph in the bitmap.
+    private final float[] mAdvance;          // Advance width of every glyph.
+    private final int mPad;                  // Room left of the pen in a cell.
+    private final int mBaseline;             // Baseline offset inside a cell.
+
+    private GlyphAtlas(Paint font) {
+        mTypeface = font.getTypeface();
+        mStyle = font.getStyle();
+        mStrokeWidth = font.getStrokeWidth();
+        mTextSize = font.getTextSize();
+
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setTypeface(mTypeface);
+        paint.setStyle(mStyle);
+        paint.setStrokeWidth(mStrokeWidth);
+        paint.setTextSize(mTextSize);
+        paint.setColor(0xFF000000);
+
+        // A stroked outline reaches half the stroke width past the glyph.
+        mPad = PAD + (mStyle == Paint.Style.FILL ? 0 : (int) Math.ceil(mStrokeWidth / 2));
+        Paint.FontMetrics metrics = paint.getFontMetrics();
+        mBaseline = mPad + (int) Math.ceil(-metrics.top);
+        int height = mBaseline + (int) Math.ceil(metrics.bottom) + mPad;
+
+        final int count = GLYPHS.length();
+        mGlyphBounds = new Rect[count];
+        mAdvance = new float[count];
+        int width = 0;
+        for (int i = 0; i < count; i++) {
+            mAdvance[i] = paint.measureText(GLYPHS, i, i + 1);
+            int cellWidth = (int) Math.ceil(mAdvance[i]) + 2 * mPad;
+            mGlyphBounds[i] = new Rect(width, 0, width + cellWidth, height);
+            width += cellWidth;
+        }
+
+        mBitmap = Bitmap.createBitmap(Math.max(1, width), Math.max(1, height), Bitmap.Config.ALPHA_8);
+        Canvas canvas = new Canvas(mBitmap);
+        for (int i = 0; i < count; i++) {
+            canvas.drawText(GLYPHS, i, i + 1, mGlyphBounds[i].left + mPad, mBaseline, paint);
+        }
+    }
+
+    /**
+     * Get the atlas for the typeface, style, stroke width and text size of
+     * {@code paint}, building it if it is not cached. Density and user font
+     * scale are part of the pixel size, so changing either selects another
+     * atlas. Safe to call from any thread; callers keep the result for as
+     * long as {@link #matches} their paint.
+     */
+    public static GlyphAtlas obtain(Paint paint) {
+        synchronized (sAtlases) {
+            final ArrayList<GlyphAtlas> atlases = sAtlases;
+            for (int i = atlases.size() - 1; i >= 0; i--) {
+                GlyphAtlas atlas = atlases.get(i);
+                if (atlas.matches(paint)) {
+                    if (i != atlases.size() - 1) {
+                        atlases.remove(i);
+                        atlases.add(atlas);
+                    }
+                    return atlas;
+                }
+            }
+            if (atlases.size() >= MAX_ATLASES) {
+                atlases.remove(0);
+            }
+            GlyphAtlas atlas = new GlyphAtlas(paint);
+            atlases.add(atlas);
+            return atlas;
+        }
+    }
+
+    /**
+     * @return whether the glyphs were rendered in the font of {@code paint}
+     */
+    public boolean matches(Paint paint) {
+        Typeface typeface = paint.getTypeface();
+        return paint.getTextSize() == mTextSize
+                && paint.getStyle() == mStyle
+                && (mStyle == Paint.Style.FILL || paint.getStrokeWidth() == mStrokeWidth)
+                && (typeface == mTypeface || typeface != null && typeface.equals(mTypeface));
+    }
+
+    private static int indexOf(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        return c == '%' ? 10 : c == '-' ? 11 : -1;
+    }
+
+    /**
+     * Draw text like {@link Canvas#drawText(char[], int, int, float, float, Paint)},
+     * honouring the paint's color and text alignment. Glyphs are placed at
+     * their fractional advances, filtered if the paint has
+     * {@link Paint#FILTER_BITMAP_FLAG}. Text with a character the atlas
+     * lacks, or a paint the atlas does not {@link #matches match}, is passed
+     * on to drawText().
+     *
+     * @param dst scratch rectangle owned by the caller
+     */
+    public void drawText(Canvas canvas, char[] text, int start, int count,
+                         float x, float y, Paint paint, RectF dst) {
+        if (!matches(paint)) {
+            canvas.drawText(text, start, count, x, y, paint);
+            return;
+        }
+        float width = 0;
+        for (int i = start; i < start + count; i++) {
+            int glyph = indexOf(text[i]);
+            if (glyph < 0) {
+                canvas.drawText(text, start, count, x, y, paint);
+                return;
+            }
+            width += mAdvance[glyph];
+        }
+        switch (paint.getTextAlign()) {
+            case CENTER:
+                x -= width / 2;
+                break;
+            case RIGHT:
+                x -= width;
+                break;
+            default:
+                break;
+        }
+
+        final float top = y - mBaseline;
+        float pen = x;
+        for (int i = start; i < start + count; i++) {
+            int glyph = indexOf(text[i]);
+            Rect src = mGlyphBounds[glyph];
+            float left = pen - mPad;
+            dst.set(left, top, left + src.width(), top + src.height());
+            canvas.drawBitmap(mBitmap, src, dst, paint);
+            pen += mAdvance[glyph];
+        }
+    }
+}
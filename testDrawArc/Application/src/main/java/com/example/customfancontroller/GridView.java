@@ -33,15 +33,42 @@ public class GridView extends View {
 //    }
 
     Paint paint = new Paint();
+    private ChartFrameMetrics frameMetrics;  // Null unless instrumented.
 
     private void init() {
         paint.setColor(Color.RED);
     }
 
+    /**
+     * Record frame timings of this view into {@code metrics}, or stop with
+     * null.
+     */
+    public void setFrameMetrics(ChartFrameMetrics metrics) {
+        frameMetrics = metrics;
+    }
+
+    public ChartFrameMetrics getFrameMetrics() {
+        return frameMetrics;
+    }
+
+    @Override
+    public void invalidate() {
+        final ChartFrameMetrics metrics = frameMetrics;
+        if (metrics != null) {
+            metrics.recordInvalidate();
+        }
+        super.invalidate();
+    }
+
     @Override
     public void onDraw(Canvas canvas) {
         super.onDraw(canvas);
+        final ChartFrameMetrics metrics = frameMetrics;
+        final long start = metrics != null ? metrics.begin() : 0;
         canvas.drawLine(0, 0, 100, 100, paint);
         canvas.drawLine(100, 100, 200, 20, paint);
+        if (metrics != null) {
+            metrics.endDraw(start);
+        }
     }
 }
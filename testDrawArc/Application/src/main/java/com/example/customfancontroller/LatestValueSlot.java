@@ -0,0 +1,83 @@
+package com.example.customfancontroller;
+
+import android.support.v4.view.ViewCompat;
+import android.view.View;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock-free single-value mailbox for streaming samples into a view from any
+ * thread. Every publish overwrites the previous value, and publishes are
+ * coalesced so the consumer runs on the UI thread at most once per frame
+ * with the newest value, no matter how many samples arrived.
+ */
+final class LatestValueSlot {
+
+    private final View mView;
+    private final Runnable mConsumer;
+    private final AtomicInteger mBits = new AtomicInteger();
+    private final AtomicBoolean mScheduled = new AtomicBoolean();
+
+    private final Runnable mDelivery = new Runnable() {
+        @Override
+        public void run() {
+            // Clear the flag before the value is read, so a sample published
+            // while the consumer runs schedules another frame.
+            mScheduled.set(false);
+            mConsumer.run();
+        }
+    };
+
+    /**
+     * @param view     the view whose animation callbacks deliver the values
+     * @param consumer run on the UI thread to read {@link #getFloat} or
+     *                 {@link #getInt}
+     */
+    LatestValueSlot(View view, Runnable consumer) {
+        mView = view;
+        mConsumer = consumer;
+    }
+
+    /**
+     * Publish a float sample. Safe to call from any thread.
+     */
+    void publish(float value) {
+        mBits.set(Float.floatToRawIntBits(value));
+        schedule();
+    }
+
+    /**
+     * Publish an int sample. Safe to call from any thread.
+     */
+    void publish(int value) {
+        mBits.set(value);
+        schedule();
+    }
+
+    float getFloat() {
+        return Float.intBitsToFloat(mBits.get());
+    }
+
+    int getInt() {
+        return mBits.get();
+    }
+
+    private void schedule() {
+        if (mScheduled.compareAndSet(false, true)) {
+            ViewCompat.postOnAnimation(mView, mDelivery);
+        }
+    }
+
+    /**
+     * Re-post a pending delivery. Call from onAttachedToWindow(): a delivery
+     * posted from another thread while the view was detached may have been
+     * dropped.
+     */
+    void onAttachedToWindow() {
+        if (mScheduled.get()) {
+            mView.removeCallbacks(mDelivery);
+            ViewCompat.postOnAnimation(mView, mDelivery);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.customfancontroller;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.PorterDuff;
+import android.graphics.SurfaceTexture;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.AttributeSet;
+import android.view.Choreographer;
+import android.view.TextureView;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Base class for chart views that draw on their own render thread into a
+ * TextureView surface instead of in onDraw() on the UI thread.
+ *
+ * Subclasses keep all drawing state on the render thread: public setters
+ * hand their work over with {@link #queueEvent(Runnable)}, and the render
+ * thread calls back into {@link #onRenderSizeChanged}, {@link #onRenderFrame}
+ * and {@link #onRender}. Frames are only produced on request and are paced
+ * by the render thread's Choreographer, so an idle chart costs nothing.
+ */
+public abstract class TextureRenderView extends TextureView implements TextureView.SurfaceTextureListener {
+
+    private static final long FALLBACK_FRAME_DELAY = 16; // ms, before API 16
+
+    private final Object mLock = new Object();
+    private HandlerThread mRenderThread;
+    private Handler mRenderHandler;                        // Guarded by mLock.
+    private final ArrayList<Runnable> mPendingEvents = new ArrayList<Runnable>(); // Guarded by mLock.
+
+    // Render thread state.
+    private boolean mSurfaceReady;
+    private boolean mFrameScheduled;
+    private Choreographer.FrameCallback mFrameCallback;
+
+    private final Runnable mFallbackFrame = new Runnable() {
+        @Override
+        public void run() {
+            doFrame(SystemClock.uptimeMillis());
+        }
+    };
+
+    public TextureRenderView(Context context) {
+        super(context);
+        init();
+    }
+
+    public TextureRenderView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        init();
+    }
+
+    public TextureRenderView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        init();
+    }
+
+    private void init() {
+        setOpaque(false);
+        setSurfaceTextureListener(this);
+    }
+
+    /**
+     * Called on the render thread when the surface is created or resized.
+     */
+    protected abstract void onRenderSizeChanged(int width, int height);
+
+    /**
+     * Called on the render thread before each frame is drawn, to advance
+     * animations.
+     *
+     * @param frameTimeMillis Frame time in the {@link SystemClock#uptimeMillis} base.
+     * @return true if another frame is needed after this one
+     */
+    protected abstract boolean onRenderFrame(long frameTimeMillis);
+
+    /**
+     * Called on the render thread to draw a frame. The canvas is cleared.
+     */
+    protected abstract void onRender(Canvas canvas);
+
+    /**
+     * Called on the render thread when the surface goes away, to free
+     * anything tied to it.
+     */
+    protected abstract void onRenderRelease();
+
+    /**
+     * Run the given event on the render thread. Events queued before the
+     * surface exists are kept and run, in order, once it does.
+     */
+    protected final void queueEvent(Runnable event) {
+        synchronized (mLock) {
+            if (mRenderHandler != null) {
+                mRenderHandler.post(event);
+            } else {
+                mPendingEvents.add(event);
+            }
+        }
+    }
+
+    /**
+     * Ask for a frame at the next vsync. Must be called on the render thread,
+     * typically from an event passed to {@link #queueEvent(Runnable)}.
+     */
+    protected final void requestRender() {
+        if (!mSurfaceReady || mFrameScheduled) {
+            return;
+        }
+        mFrameScheduled = true;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            if (mFrameCallback == null) {
+                mFrameCallback = new Choreographer.FrameCallback() {
+                    @Override
+                    public void doFrame(long frameTimeNanos) {
+                        TextureRenderView.this.doFrame(frameTimeNanos / 1000000);
+                    }
+                };
+            }
+            Choreographer.getInstance().postFrameCallback(mFrameCallback);
+        } else {
+            // The UI thread clears the handler when the surface goes away.
+            Handler handler;
+            synchronized (mLock) {
+                handler = mRenderHandler;
+            }
+            if (handler != null) {
+                handler.postDelayed(mFallbackFrame, FALLBACK_FRAME_DELAY);
+            } else {
+                mFrameScheduled = false;
+            }
+        }
+    }
+
+    private void doFrame(long frameTimeMillis) {
+        mFrameScheduled = false;
+        if (!mSurfaceReady) {
+            return;
+        }
+        boolean needNewFrame = onRenderFrame(frameTimeMillis);
+        Canvas canvas = lockCanvas();
+        if (canvas != null) {
+            try {
+                canvas.drawColor(0, PorterDuff.Mode.CLEAR);
+                onRender(canvas);
+            } finally {
+                unlockCanvasAndPost(canvas);
+            }
+        }
+        if (needNewFrame) {
+            requestRender();
+        }
+    }
+
+    @Override
+    public void onSurfaceTextureAvailable(SurfaceTexture surface, final int width, final int height) {
+        synchronized (mLock) {
+            mRenderThread = new HandlerThread(getClass().getSimpleName(), Process.THREAD_PRIORITY_DISPLAY);
+            mRenderThread.start();
+            mRenderHandler = new Handler(mRenderThread.getLooper());
+            mRenderHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    mSurfaceReady = true;
+                    onRenderSizeChanged(width, height);
+                }
+            });
+            for (Runnable event : mPendingEvents) {
+                mRenderHandler.post(event);
+            }
+            mPendingEvents.clear();
+            mRenderHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    requestRender();
+                }
+            });
+        }
+    }
+
+    @Override
+    public void onSurfaceTextureSizeChanged(SurfaceTexture surface, final int width, final int height) {
+        queueEvent(new Runnable() {
+            @Override
+            public void run() {
+                onRenderSizeChanged(width, height);
+                requestRender();
+            }
+        });
+    }
+
+    @Override
+    public boolean onSurfaceTextureDestroyed(SurfaceTexture surface) {
+        final CountDownLatch stopped = new CountDownLatch(1);
+        HandlerThread renderThread;
+        synchronized (mLock) {
+            renderThread = mRenderThread;
+            if (mRenderHandler == null) {
+                return true;
+            }
+            // Stop drawing before the surface is released. Events queued
+            // from now on wait for the next surface.
+            mRenderHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    mSurfaceReady = false;
+                    if (mFrameScheduled && mFrameCallback != null) {
+                        Choreographer.getInstance().removeFrameCallback(mFrameCallback);
+                    }
+                    mFrameScheduled = false;
+                    onRenderRelease();
+                    stopped.countDown();
+                }
+            });
+            mRenderHandler.removeCallbacks(mFallbackFrame);
+            mRenderHandler = null;
+            mRenderThread = null;
+        }
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        renderThread.quit();
+        return true;
+    }
+
+    @Override
+    public void onSurfaceTextureUpdated(SurfaceTexture surface) {
+    }
+}
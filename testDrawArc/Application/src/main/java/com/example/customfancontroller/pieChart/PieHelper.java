@@ -7,14 +7,10 @@ public class PieHelper {
 
     private float startDegree;
     private float endDegree;
-    private float targetStartDegree;
-    private float targetEndDegree;
     private String title;
     private int color;
     private float sweepDegree;
-
-    int velocity = 5;
-
+    private Object key;
 
     public PieHelper(float percent){
         this(percent, null, 0);
@@ -37,23 +33,17 @@ public class PieHelper {
     }
 
 
-    PieHelper(float startDegree, float endDegree, PieHelper targetPie){
-        this.startDegree = startDegree;
-        this.endDegree = endDegree;
-        targetStartDegree = targetPie.getStartDegree();
-        targetEndDegree = targetPie.getEndDegree();
-        this.sweepDegree = targetPie.getSweep();
-        this.title = targetPie.getTitle();
-        this.color = targetPie.getColor();
+    /**
+     * Identify this pie across datasets, so {@link PieView#updateDate} can
+     * animate it from where it currently is instead of from scratch.
+     */
+    public PieHelper setKey(Object key){
+        this.key = key;
+        return this;
     }
 
-    PieHelper setTarget(PieHelper targetPie){
-        this.targetStartDegree = targetPie.getStartDegree();
-        this.targetEndDegree = targetPie.getEndDegree();
-        this.title = targetPie.getTitle();
-        this.color = targetPie.getColor();
-        this.sweepDegree = targetPie.getSweep();
-        return this;
+    public Object getKey(){
+        return key;
     }
 
     void setDegree(float startDegree, float endDegree){
@@ -61,23 +51,6 @@ public class PieHelper {
         this.endDegree = endDegree;
     }
 
-    boolean isColorSetted(){return color != 0;}
-
-    boolean isAtRest(){
-        return (startDegree==targetStartDegree)&&(endDegree==targetEndDegree);
-    }
-
-    void update(){
-        this.startDegree = updateSelf(startDegree, targetStartDegree, velocity);
-        this.endDegree = updateSelf(endDegree, targetEndDegree, velocity);
-        this.sweepDegree = endDegree - startDegree;
-    }
-
-    String getPercentStr(){
-        float percent = sweepDegree / 360 * 100;
-        return String.valueOf((int)percent) + "%";
-    }
-
     public int getColor(){ return color; }
 
     public String getTitle(){
@@ -95,16 +68,4 @@ public class PieHelper {
     public float getEndDegree(){
         return endDegree;
     }
-
-    private float updateSelf(float origin, float target, int velocity){
-        if (origin < target) {
-            origin += velocity;
-        } else if (origin > target){
-            origin-= velocity;
-        }
-        if(Math.abs(target-origin)<velocity){
-            origin = target;
-        }
-        return origin;
-    }
 }
@@ -0,0 +1,365 @@
+package com.example.customfancontroller.pieChart;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Point;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+import com.example.customfancontroller.GlyphAtlas;
+import com.example.customfancontroller.chartmath.ArcBounds;
+import com.example.customfancontroller.chartmath.PieLayout;
+import com.example.customfancontroller.chartmath.PieMath;
+
+/**
+ * Lays out and draws a pie chart onto any Canvas and holds the pies, the
+ * selection and the animation state. It is not tied to a View, so the same
+ * drawing is used by {@link PieView} on the UI thread and by
+ * {@link PieTextureView} on a render thread. A renderer must only be used
+ * from one thread at a time.
+ */
+class PieRenderer {
+
+    private static final int AGGREGATE_COLOR = Color.LTGRAY;
+
+    private Paint cirPaint;
+    private Paint whiteLinePaint;
+    private Point pieCenterPoint;
+    private Paint textPaint;
+    private RectF cirRect;
+    private RectF cirSelectedRect;
+
+    private int mViewWidth;
+    private int mViewHeight;
+    private int margin;
+    private int pieRadius;
+
+    PieSliceStore pies = new PieSliceStore();
+    // Second store that mergeDate() builds the merged dataset into before
+    // swapping it with pies.
+    private PieSliceStore sparePies = new PieSliceStore();
+    int selectedIndex = PieView.NO_SELECTED_INDEX;
+
+    boolean showPercentLabel = true;
+    boolean levelOfDetail = false;
+    private float[] separatorLines = new float[0];
+    private int separatorCount;
+    private final float[] labelPosition = new float[2];
+    private GlyphAtlas percentAtlas;         // Digits in textPaint's font.
+    private final RectF glyphRect = new RectF();
+
+    // Area that changed since the last consumeDirtyRegion(), or everything
+    // if fullyDirty.
+    private final RectF dirty = new RectF();
+    private boolean fullyDirty = true;
+    private final float[] bounds = new float[4];
+
+    PieRenderer(Context context){
+        cirPaint = new Paint();
+        cirPaint.setAntiAlias(true);
+        cirPaint.setColor(Color.GRAY);
+        whiteLinePaint = new Paint(cirPaint);
+        whiteLinePaint.setColor(PieLayout.SEPARATOR_COLOR);
+        whiteLinePaint.setStrokeWidth(PieLayout.SEPARATOR_WIDTH);
+        textPaint = new Paint();
+        textPaint.setAntiAlias(true);
+        // Percent labels are glyph blits at sub-pixel positions.
+        textPaint.setFilterBitmap(true);
+        textPaint.setColor(PieLayout.TEXT_COLOR);
+        textPaint.setTextSize(MyUtils.sp2px(context, PieLayout.TEXT_SIZE_SP));
+        textPaint.setStrokeWidth(5);
+        textPaint.setTextAlign(Paint.Align.CENTER);
+        pieCenterPoint = new Point();
+        cirRect = new RectF();
+        cirSelectedRect = new RectF();
+    }
+
+    /**
+     * Set the size of the drawing area and lay the chart out in it.
+     */
+    void setSize(int width, int height){
+        mViewWidth = width;
+        mViewHeight = height;
+        margin = PieLayout.margin(mViewWidth);
+        pieRadius = PieLayout.radius(mViewWidth);
+        pieCenterPoint.set(pieRadius+margin, pieRadius+margin);
+        cirRect.set(pieCenterPoint.x-pieRadius,
+                pieCenterPoint.y-pieRadius,
+                pieCenterPoint.x+pieRadius,
+                pieCenterPoint.y+pieRadius);
+        cirSelectedRect.set(PieLayout.SELECTED_INSET,
+                PieLayout.SELECTED_INSET,
+                mViewWidth-PieLayout.SELECTED_INSET,
+                mViewHeight-PieLayout.SELECTED_INSET);
+        pies.invalidateLabelPositions();
+        fullyDirty = true;
+    }
+
+    /**
+     * Select the given pie, or none with {@link PieView#NO_SELECTED_INDEX},
+     * marking the old and the new selected wedge dirty.
+     */
+    void select(int index){
+        if(index == selectedIndex){
+            return;
+        }
+        if(levelOfDetail){
+            // The selected pie is never aggregated, so the runs around
+            // both pies are drawn differently now.
+            invalidateAll();
+        }else{
+            addDirtyPies(selectedIndex, selectedIndex);
+            addDirtyPies(index, index);
+        }
+        selectedIndex = index;
+    }
+
+    /**
+     * Step the pie animation, see {@link PieSliceStore#update}, and mark the
+     * wedges that moved dirty. In level-of-detail mode a moving pie can
+     * merge or split aggregate runs that reach past the moved wedges, so
+     * everything is marked dirty instead.
+     *
+     * @return true if any pie still needs another frame
+     */
+    boolean step(long elapsedMillis){
+        boolean moving = pies.update(elapsedMillis);
+        if(pies.movedFirst == PieSliceStore.NOT_FOUND){
+            return moving;
+        }
+        if(levelOfDetail){
+            invalidateAll();
+        }else{
+            boolean selectedMoved = selectedIndex >= pies.movedFirst && selectedIndex <= pies.movedLast;
+            addDirtyWedge(pies.movedFromDegree, pies.movedToDegree - pies.movedFromDegree, selectedMoved);
+        }
+        return moving;
+    }
+
+    /**
+     * Mark pies {@code first} to {@code last} dirty as they are drawn now.
+     */
+    private void addDirtyPies(int first, int last){
+        if(first < 0 || last >= pies.size){
+            return;
+        }
+        boolean selected = selectedIndex >= first && selectedIndex <= last;
+        addDirtyWedge(pies.startDegree[first], pies.endDegree[last] - pies.startDegree[first], selected);
+    }
+
+    /**
+     * Add a wedge from the centre, its separators and the percent labels in
+     * it to the dirty region. Selected wedges reach out to the bigger
+     * selection circle.
+     */
+    private void addDirtyWedge(float startDegree, float sweepDegree, boolean selected){
+        float radius = selected ? cirSelectedRect.width() / 2 : pieRadius;
+        ArcBounds.compute(pieCenterPoint.x, pieCenterPoint.y, radius, startDegree, sweepDegree, true, bounds);
+        // Room for labels that straddle the edges and for antialiasing.
+        float pad = textPaint.getTextSize() * 2;
+        dirty.union(bounds[ArcBounds.LEFT] - pad, bounds[ArcBounds.TOP] - pad,
+                bounds[ArcBounds.RIGHT] + pad, bounds[ArcBounds.BOTTOM] + pad);
+    }
+
+    /**
+     * Mark everything dirty, for changes such as a new dataset that the
+     * renderer does not track in detail.
+     */
+    void invalidateAll(){
+        fullyDirty = true;
+    }
+
+    /**
+     * Hand out the area that changed since the last call and start
+     * collecting afresh.
+     *
+     * @param out receives the changed area; the whole drawing area when a
+     *            full redraw is needed
+     * @return false if nothing changed
+     */
+    boolean consumeDirtyRegion(Rect out){
+        boolean changed = fullyDirty || !dirty.isEmpty();
+        if(fullyDirty){
+            out.set(0, 0, mViewWidth, mViewHeight);
+        }else if(changed){
+            dirty.roundOut(out);
+        }
+        fullyDirty = false;
+        dirty.setEmpty();
+        return changed;
+    }
+
+    /**
+     * Replace the pies, each growing in from its start degree.
+     */
+    void setDate(PieSnapshot snapshot){
+        pies.setAll(snapshot);
+        fullyDirty = true;
+    }
+
+    /**
+     * Merge a new dataset into the current pies, see
+     * {@link PieView#updateDate}.
+     *
+     * @return the index the selected pie has in the new dataset
+     */
+    int mergeDate(PieSnapshot snapshot){
+        int selected = PieView.NO_SELECTED_INDEX;
+        if(selectedIndex >= 0 && selectedIndex < pies.size){
+            Object selectedKey = pies.key[selectedIndex];
+            selected = selectedKey == null ? selectedIndex : PieView.NO_SELECTED_INDEX;
+            for(int i = 0; selectedKey != null && i < snapshot.size; i++){
+                if(selectedKey.equals(snapshot.key[i])){
+                    selected = i;
+                    break;
+                }
+            }
+            if(selected >= snapshot.size){
+                selected = PieView.NO_SELECTED_INDEX;
+            }
+        }
+
+        PieSliceStore merged = sparePies;
+        merged.mergeFrom(pies, snapshot);
+        sparePies = pies;
+        sparePies.clear();
+        pies = merged;
+        selectedIndex = selected;
+        fullyDirty = true;
+        return selected;
+    }
+
+    /**
+     * Change the value of a single keyed pie.
+     *
+     * @return false if no pie has the given key
+     */
+    boolean updatePie(Object key, float percent){
+        int index = key == null ? PieSliceStore.NOT_FOUND : pies.indexOfKey(key, PieSliceStore.NOT_FOUND);
+        if(index == PieSliceStore.NOT_FOUND){
+            return false;
+        }
+        pies.retargetSweep(index, percent * 360 / 100);
+        return true;
+    }
+
+    void draw(Canvas canvas) {
+        final PieSliceStore pies = this.pies;
+        if(pies.size == 0){
+            return ;
+        }
+
+        // Separator lines are collected here and drawn in one batch after
+        // the wedges; every drawn wedge contributes at most two lines.
+        if(separatorLines.length < pies.size * 8){
+            separatorLines = new float[pies.size * 8];
+        }
+        separatorCount = 0;
+
+        // Smallest sweep that still covers one pixel on the rim; anything
+        // narrower is merged into an aggregate wedge in level-of-detail mode.
+        float minSweep = levelOfDetail && pieRadius > 0 ? (float)(180 / (Math.PI * pieRadius)) : 0;
+        int runFirst = 0;
+        int runLast = 0;
+        boolean inRun = false;
+
+        for(int index = 0; index < pies.size; index++){
+            boolean selected = (selectedIndex == index);
+            if(!selected && minSweep > 0 && pies.sweepDegree[index] < minSweep){
+                if(inRun && pies.startDegree[index] > pies.endDegree[runLast] + minSweep){
+                    drawAggregate(canvas, runFirst, runLast);
+                    inRun = false;
+                }
+                if(!inRun){
+                    runFirst = index;
+                    inRun = true;
+                }
+                runLast = index;
+                if(pies.endDegree[runLast] - pies.startDegree[runFirst] >= minSweep){
+                    drawAggregate(canvas, runFirst, runLast);
+                    inRun = false;
+                }
+                continue;
+            }
+            if(inRun){
+                drawAggregate(canvas, runFirst, runLast);
+                inRun = false;
+            }
+
+            RectF rect = selected? cirSelectedRect: cirRect;
+            cirPaint.setColor(pies.color[index]);
+            // A spring overshooting past zero leaves a negative sweep, which
+            // would draw backwards over the previous wedge.
+            canvas.drawArc(rect, pies.startDegree[index], Math.max(0, pies.sweepDegree[index]), true, cirPaint);
+            drawPercentText(canvas, index);
+
+            int lineLength = selected? mViewHeight/2 : pieRadius;
+            addSeparator(pies.startCos[index], pies.startSin[index], lineLength);
+            addSeparator(pies.endCos[index], pies.endSin[index], lineLength);
+        }
+        if(inRun){
+            drawAggregate(canvas, runFirst, runLast);
+        }
+
+        canvas.drawLines(separatorLines, 0, separatorCount, whiteLinePaint);
+    }
+
+    /**
+     * Draw a run of sub-pixel pies as one wedge, without a percent label.
+     */
+    private void drawAggregate(Canvas canvas, int first, int last){
+        final PieSliceStore pies = this.pies;
+        cirPaint.setColor(AGGREGATE_COLOR);
+        canvas.drawArc(cirRect, pies.startDegree[first], Math.max(0, pies.endDegree[last] - pies.startDegree[first]), true, cirPaint);
+        addSeparator(pies.startCos[first], pies.startSin[first], pieRadius);
+        addSeparator(pies.endCos[last], pies.endSin[last], pieRadius);
+    }
+
+    /**
+     * Queue a white line from the centre out along the given direction.
+     */
+    private void addSeparator(float cos, float sin, int length){
+        float[] lines = separatorLines;
+        int i = separatorCount;
+        lines[i] = pieCenterPoint.x;
+        lines[i + 1] = pieCenterPoint.y;
+        lines[i + 2] = mViewHeight/2 + cos * length;
+        lines[i + 3] = mViewHeight/2 + sin * length;
+        separatorCount = i + 4;
+    }
+
+    private void drawPercentText(Canvas canvas, int index){
+        if(!showPercentLabel) return ;
+        final PieSliceStore pies = this.pies;
+        if(!pies.labelPlaced[index]){
+            PieMath.labelPosition(pies.startDegree[index], pies.endDegree[index], mViewHeight/2, pieRadius, labelPosition);
+            pies.labelX[index] = labelPosition[0];
+            pies.labelY[index] = labelPosition[1];
+            // Only keep the position while the pie is not moving.
+            pies.labelPlaced[index] = pies.isAtRest(index);
+        }
+        int length = pies.updatePercentLabel(index);
+        if(percentAtlas == null || !percentAtlas.matches(textPaint)){
+            percentAtlas = GlyphAtlas.obtain(textPaint);
+        }
+        percentAtlas.drawText(canvas, pies.labelChars, index * PieSliceStore.LABEL_SLOT, length,
+                pies.labelX[index], pies.labelY[index], textPaint, glyphRect);
+    }
+
+    private void drawText(Canvas canvas, int index){
+        if(pies.title[index] == null) return ;
+        PieMath.labelPosition(pies.startDegree[index], pies.endDegree[index], mViewHeight/2, pieRadius, labelPosition);
+        canvas.drawText(pies.title[index], labelPosition[0], labelPosition[1], textPaint);
+    }
+
+    int findPointAt(int x, int y){
+        // Pies are laid out from 270 degrees, so the touch is brought into
+        // the same [270, 630) turn before searching.
+        double degree = PieMath.touchDegree(x-pieCenterPoint.x, y-pieCenterPoint.y);
+
+        int index = pies.indexAt(degree);
+        return index == PieSliceStore.NOT_FOUND ? PieView.NO_SELECTED_INDEX : index;
+    }
+}
@@ -0,0 +1,448 @@
+package com.example.customfancontroller.pieChart;
+
+import com.example.customfancontroller.chartmath.AnimatedValues;
+import com.example.customfancontroller.chartmath.PieLayout;
+import com.example.customfancontroller.chartmath.PieMath;
+
+import java.util.Arrays;
+
+/**
+ * Struct-of-arrays storage for the pies drawn by {@link PieView}. Every pie
+ * is an index into parallel primitive arrays, which grow in place and are
+ * reused across datasets, so stepping, drawing and hit-testing walk flat
+ * arrays instead of a list of objects.
+ */
+class PieSliceStore {
+
+    static final int NOT_FOUND = PieMath.NOT_FOUND;
+    // Room for any int percentage plus the '%' sign.
+    static final int LABEL_SLOT = 12;
+
+    int size;
+
+    // The start and end edge of every pie spring towards their targets.
+    // startDegree/endDegree and the target arrays are the live arrays of
+    // these, re-read by ensureCapacity(); only the motions write them.
+    final AnimatedValues startMotion = new AnimatedValues(0);
+    final AnimatedValues endMotion = new AnimatedValues(0);
+    float[] startDegree = startMotion.values();
+    float[] endDegree = endMotion.values();
+    float[] targetStartDegree = startMotion.targets();
+    float[] targetEndDegree = endMotion.targets();
+    float[] sweepDegree = new float[0];
+    int[] color = new int[0];
+    String[] title = new String[0];
+    Object[] key = new Object[0];
+
+    // Direction of the start and end edge of every pie, kept in step with
+    // startDegree/endDegree by updateEdges() so separators need no trig.
+    float[] startCos = new float[0];
+    float[] startSin = new float[0];
+    float[] endCos = new float[0];
+    float[] endSin = new float[0];
+
+    // Index of every pie that has a key.
+    private KeyIndex keyIndex = new KeyIndex();
+
+    // Percent label cache: the integer percentage each label was last
+    // formatted for, and its characters in a LABEL_SLOT wide slot of
+    // labelChars. labelX/labelY hold the label position, valid while
+    // labelPlaced is set (only for pies at rest).
+    int[] labelPercent = new int[0];
+    int[] labelLength = new int[0];
+    char[] labelChars = new char[0];
+    float[] labelX = new float[0];
+    float[] labelY = new float[0];
+    boolean[] labelPlaced = new boolean[0];
+
+    // Scratch flags for update(): which pies were moving before the step.
+    private boolean[] moved = new boolean[0];
+
+    // The pies that moved in the last update() and the degrees they covered
+    // before and after it, for partial redraws; movedFirst is NOT_FOUND if
+    // none moved.
+    int movedFirst = NOT_FOUND;
+    int movedLast = NOT_FOUND;
+    float movedFromDegree;
+    float movedToDegree;
+
+    // Natural frequency of the edge springs, in radians per second.
+    float stiffness = AnimatedValues.DEFAULT_STIFFNESS;
+
+    // False if the end degrees are not in ascending order, in which case
+    // indexAt() falls back to a linear scan.
+    boolean sorted = true;
+
+    void clear(){
+        Arrays.fill(title, 0, size, null);
+        Arrays.fill(key, 0, size, null);
+        keyIndex.clear();
+        size = 0;
+        sorted = true;
+    }
+
+    void ensureCapacity(int capacity){
+        if(capacity <= startDegree.length){
+            return;
+        }
+        int newCapacity = Math.max(capacity, startDegree.length * 2);
+        startMotion.ensureCapacity(newCapacity);
+        endMotion.ensureCapacity(newCapacity);
+        startDegree = startMotion.values();
+        endDegree = endMotion.values();
+        targetStartDegree = startMotion.targets();
+        targetEndDegree = endMotion.targets();
+        sweepDegree = Arrays.copyOf(sweepDegree, newCapacity);
+        color = Arrays.copyOf(color, newCapacity);
+        title = Arrays.copyOf(title, newCapacity);
+        key = Arrays.copyOf(key, newCapacity);
+        startCos = Arrays.copyOf(startCos, newCapacity);
+        startSin = Arrays.copyOf(startSin, newCapacity);
+        endCos = Arrays.copyOf(endCos, newCapacity);
+        endSin = Arrays.copyOf(endSin, newCapacity);
+        labelPercent = Arrays.copyOf(labelPercent, newCapacity);
+        labelLength = Arrays.copyOf(labelLength, newCapacity);
+        labelChars = Arrays.copyOf(labelChars, newCapacity * LABEL_SLOT);
+        labelX = Arrays.copyOf(labelX, newCapacity);
+        labelY = Arrays.copyOf(labelY, newCapacity);
+        labelPlaced = Arrays.copyOf(labelPlaced, newCapacity);
+        moved = Arrays.copyOf(moved, newCapacity);
+    }
+
+    private void setSize(int count){
+        size = count;
+        startMotion.setSize(count);
+        endMotion.setSize(count);
+    }
+
+    /**
+     * Replace the contents with the given pies, each starting collapsed at
+     * its target start degree so it grows into place.
+     */
+    void setAll(PieSnapshot snapshot){
+        clear();
+        int count = snapshot.size;
+        ensureCapacity(count);
+        setSize(count);
+        for(int i = 0; i < count; i++){
+            startMotion.snapTo(i, snapshot.startDegree[i]);
+            endMotion.snapTo(i, snapshot.startDegree[i]);
+            endMotion.springTo(i, snapshot.endDegree[i], stiffness);
+            sweepDegree[i] = snapshot.endDegree[i] - snapshot.startDegree[i];
+            color[i] = snapshot.color[i];
+            title[i] = snapshot.title[i];
+            key[i] = snapshot.key[i];
+            labelLength[i] = 0;
+            labelPlaced[i] = false;
+            updateEdges(i);
+        }
+        sorted = checkSorted();
+        rebuildKeyIndex();
+    }
+
+    /**
+     * Replace the contents with the given pies, keeping the animation state
+     * of pies that already exist in {@code previous}. A pie matches an old
+     * one with the same key, or, when it has no key, the unkeyed old pie at
+     * the same index. Matched pies keep their current degrees and label
+     * cache and are only retargeted, keeping their velocity; new pies grow from their target start
+     * degree; old pies without a match are dropped.
+     *
+     * If no pie was inserted, removed or moved, the key index of
+     * {@code previous} is taken over instead of being rebuilt, so
+     * {@code previous} must be cleared before it is used again.
+     */
+    void mergeFrom(PieSliceStore previous, PieSnapshot snapshot){
+        clear();
+        int count = snapshot.size;
+        ensureCapacity(count);
+        setSize(count);
+        stiffness = previous.stiffness;
+        boolean sameIndices = count == previous.size;
+        for(int i = 0; i < count; i++){
+            int old = previous.indexOfKey(snapshot.key[i], i);
+            sameIndices &= old == i;
+            color[i] = snapshot.color[i];
+            title[i] = snapshot.title[i];
+            key[i] = snapshot.key[i];
+            if(old != NOT_FOUND){
+                startMotion.copy(i, previous.startMotion, old);
+                endMotion.copy(i, previous.endMotion, old);
+                startMotion.springTo(i, snapshot.startDegree[i], stiffness);
+                endMotion.springTo(i, snapshot.endDegree[i], stiffness);
+                sweepDegree[i] = previous.sweepDegree[old];
+                labelPercent[i] = previous.labelPercent[old];
+                labelLength[i] = previous.labelLength[old];
+                System.arraycopy(previous.labelChars, old * LABEL_SLOT, labelChars, i * LABEL_SLOT, LABEL_SLOT);
+                labelX[i] = previous.labelX[old];
+                labelY[i] = previous.labelY[old];
+                labelPlaced[i] = previous.labelPlaced[old] && isAtRest(i);
+            }else {
+                startMotion.snapTo(i, snapshot.startDegree[i]);
+                endMotion.snapTo(i, snapshot.startDegree[i]);
+                startMotion.springTo(i, snapshot.startDegree[i], stiffness);
+                endMotion.springTo(i, snapshot.endDegree[i], stiffness);
+                sweepDegree[i] = 0;
+                labelLength[i] = 0;
+                labelPlaced[i] = false;
+            }
+            updateEdges(i);
+        }
+        sorted = checkSorted();
+        if(sameIndices){
+            KeyIndex index = keyIndex;
+            keyIndex = previous.keyIndex;
+            previous.keyIndex = index;
+        }else {
+            rebuildKeyIndex();
+        }
+    }
+
+    /**
+     * Change the target sweep of one pie and shift the targets of the pies
+     * after it so they stay contiguous.
+     */
+    void retargetSweep(int index, float sweep){
+        float shift = sweep - (targetEndDegree[index] - targetStartDegree[index]);
+        if(shift == 0){
+            return;
+        }
+        endMotion.springTo(index, targetEndDegree[index] + shift, stiffness);
+        labelPlaced[index] = false;
+        for(int i = index + 1; i < size; i++){
+            startMotion.springTo(i, targetStartDegree[i] + shift, stiffness);
+            endMotion.springTo(i, targetEndDegree[i] + shift, stiffness);
+            labelPlaced[i] = false;
+        }
+    }
+
+    /**
+     * @param fallback the index to match when {@code pieKey} is null
+     * @return the index of the pie with the given key, or {@link #NOT_FOUND}
+     */
+    int indexOfKey(Object pieKey, int fallback){
+        if(pieKey == null){
+            return fallback >= 0 && fallback < size && key[fallback] == null ? fallback : NOT_FOUND;
+        }
+        return keyIndex.get(pieKey, NOT_FOUND);
+    }
+
+    private void rebuildKeyIndex(){
+        keyIndex.clear();
+        for(int i = 0; i < size; i++){
+            if(key[i] != null){
+                keyIndex.put(key[i], i);
+            }
+        }
+    }
+
+    /**
+     * Map from pie key to index with open addressing and int values, so
+     * refilling it for a new dataset allocates nothing once it has grown
+     * to the dataset size.
+     */
+    private static final class KeyIndex {
+
+        private Object[] keys = new Object[16];
+        private int[] values = new int[16];
+        private int count;
+
+        void clear(){
+            if(count > 0){
+                Arrays.fill(keys, null);
+                count = 0;
+            }
+        }
+
+        /**
+         * Map {@code key} to {@code value}, replacing any earlier value.
+         */
+        void put(Object key, int value){
+            // Keep at least half the slots free so probes stay short.
+            if(2 * (count + 1) > keys.length){
+                grow();
+            }
+            final Object[] keys = this.keys;
+            int mask = keys.length - 1;
+            int slot = slotOf(key, mask);
+            while(keys[slot] != null){
+                if(keys[slot].equals(key)){
+                    values[slot] = value;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+            count++;
+        }
+
+        /**
+         * @return the value of {@code key}, or {@code missing}
+         */
+        int get(Object key, int missing){
+            final Object[] keys = this.keys;
+            int mask = keys.length - 1;
+            int slot = slotOf(key, mask);
+            while(keys[slot] != null){
+                if(keys[slot].equals(key)){
+                    return values[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            return missing;
+        }
+
+        private void grow(){
+            Object[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new Object[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            count = 0;
+            for(int i = 0; i < oldKeys.length; i++){
+                if(oldKeys[i] != null){
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int slotOf(Object key, int mask){
+            // Spread the hash so keys with regular hash codes, such as
+            // small Integers, do not cluster.
+            int hash = key.hashCode() * 0x9E3779B9;
+            return (hash ^ (hash >>> 16)) & mask;
+        }
+    }
+
+    boolean isAtRest(int index){
+        return startMotion.isAtRest(index) && endMotion.isAtRest(index);
+    }
+
+    boolean isAtRest(){
+        for(int i = 0; i < size; i++){
+            if(!isAtRest(i)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Make sure the cached percent label of a pie matches its current sweep,
+     * reformatting it only when the integer percentage changed. The label
+     * text is then at {@code index * LABEL_SLOT} in {@link #labelChars}.
+     *
+     * @return the number of characters in the label
+     */
+    int updatePercentLabel(int index){
+        int percent = PieLayout.percent(sweepDegree[index]);
+        if(labelLength[index] == 0 || labelPercent[index] != percent){
+            labelPercent[index] = percent;
+            labelLength[index] = formatPercent(percent, labelChars, index * LABEL_SLOT);
+        }
+        return labelLength[index];
+    }
+
+    void invalidateLabelPositions(){
+        Arrays.fill(labelPlaced, 0, size, false);
+    }
+
+    /**
+     * Write {@code value} followed by '%' into {@code out} at {@code offset}.
+     *
+     * @return the number of characters written
+     */
+    private static int formatPercent(int value, char[] out, int offset){
+        long remaining = value;
+        int length = 0;
+        if(remaining < 0){
+            out[offset + length++] = '-';
+            remaining = -remaining;
+        }
+        int digitsStart = length;
+        do {
+            out[offset + length++] = (char)('0' + remaining % 10);
+            remaining /= 10;
+        } while(remaining > 0);
+        // Digits were written least significant first.
+        for(int i = offset + digitsStart, j = offset + length - 1; i < j; i++, j--){
+            char tmp = out[i];
+            out[i] = out[j];
+            out[j] = tmp;
+        }
+        out[offset + length++] = '%';
+        return length;
+    }
+
+    /**
+     * Step the edge springs of every pie by the given amount of time.
+     *
+     * @return true if any pie still needs another frame
+     */
+    boolean update(long elapsedMillis){
+        final boolean[] moved = this.moved;
+        int first = NOT_FOUND;
+        int last = NOT_FOUND;
+        float from = Float.MAX_VALUE;
+        float to = -Float.MAX_VALUE;
+        for(int i = 0; i < size; i++){
+            moved[i] = !isAtRest(i);
+            if(moved[i]){
+                if(first == NOT_FOUND){
+                    first = i;
+                }
+                last = i;
+                from = Math.min(from, startDegree[i]);
+                to = Math.max(to, endDegree[i]);
+            }
+        }
+        // Both motions have to step, so no short-circuit.
+        boolean moving = startMotion.step(elapsedMillis) | endMotion.step(elapsedMillis);
+        boolean ascending = true;
+        float lastEnd = -Float.MAX_VALUE;
+        for(int i = 0; i < size; i++){
+            float start = startDegree[i];
+            float end = endDegree[i];
+            sweepDegree[i] = end - start;
+            if(moved[i]){
+                from = Math.min(from, start);
+                to = Math.max(to, end);
+                updateEdges(i);
+                if(!isAtRest(i)){
+                    labelPlaced[i] = false;
+                }
+            }
+            ascending &= end >= lastEnd && start <= end;
+            lastEnd = end;
+        }
+        sorted = ascending;
+        movedFirst = first;
+        movedLast = last;
+        movedFromDegree = from;
+        movedToDegree = to;
+        return moving;
+    }
+
+    /**
+     * Find the pie covering the given degree, which must already be in the
+     * [270, 630) turn the pies are laid out in.
+     *
+     * @return the pie index, or {@link #NOT_FOUND}
+     */
+    int indexAt(double degree){
+        return PieMath.indexAt(startDegree, endDegree, size, sorted, degree);
+    }
+
+    private void updateEdges(int index){
+        double start = Math.toRadians(startDegree[index]);
+        double end = Math.toRadians(endDegree[index]);
+        startCos[index] = (float)Math.cos(start);
+        startSin[index] = (float)Math.sin(start);
+        endCos[index] = (float)Math.cos(end);
+        endSin[index] = (float)Math.sin(end);
+    }
+
+    private boolean checkSorted(){
+        return PieMath.isSorted(startDegree, endDegree, size);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.customfancontroller.pieChart;
+
+import com.example.customfancontroller.chartmath.PieLayout;
+import com.example.customfancontroller.chartmath.PieMath;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable, fully laid out dataset for {@link PieView}: the target degrees,
+ * resolved color, title and key of every pie. Building one does all the
+ * per-pie work, so it can be done on a worker thread and handed to
+ * {@link PieView#postDate(PieSnapshot)}, which swaps it in on the next frame.
+ */
+public final class PieSnapshot {
+
+    final int size;
+    final float[] startDegree;
+    final float[] endDegree;
+    final int[] color;
+    final String[] title;
+    final Object[] key;
+
+    private PieSnapshot(int size){
+        this.size = size;
+        startDegree = new float[size];
+        endDegree = new float[size];
+        color = new int[size];
+        title = new String[size];
+        key = new Object[size];
+    }
+
+    /**
+     * Lay out the given pies, in list order. Safe to call from any thread as
+     * long as the pies are not modified meanwhile; they are only read.
+     */
+    public static PieSnapshot build(List<PieHelper> helperList){
+        return build(helperList, null);
+    }
+
+    /**
+     * Lay out the given pies in the order of {@code order}, or in list order
+     * if it is null. The list itself is not reordered.
+     */
+    public static PieSnapshot build(List<PieHelper> helperList, Comparator<? super PieHelper> order){
+        if(helperList == null || helperList.isEmpty()){
+            return new PieSnapshot(0);
+        }
+        List<PieHelper> pies = helperList;
+        if(order != null){
+            pies = new ArrayList<PieHelper>(helperList);
+            Collections.sort(pies, order);
+        }
+
+        int count = pies.size();
+        PieSnapshot snapshot = new PieSnapshot(count);
+        // The sweeps go into endDegree first and are laid out in place.
+        for(int i = 0; i < count; i++){
+            snapshot.endDegree[i] = pies.get(i).getSweep();
+        }
+        PieMath.layOut(snapshot.endDegree, count, PieMath.START_DEGREE, snapshot.startDegree, snapshot.endDegree);
+        for(int i = 0; i < count; i++){
+            PieHelper pie = pies.get(i);
+            snapshot.color[i] = PieLayout.color(i, pie.getColor());
+            snapshot.title[i] = pie.getTitle();
+            snapshot.key[i] = pie.getKey();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Set the start and end degree of every pie in the list the way a
+     * snapshot of it lays them out, for callers reading them back from
+     * {@link PieHelper}.
+     */
+    static void layOut(List<PieHelper> helperList){
+        float totalAngel = PieMath.START_DEGREE;
+        for(PieHelper pie:helperList){
+            pie.setDegree(totalAngel, totalAngel + pie.getSweep());
+            totalAngel += pie.getSweep();
+        }
+    }
+
+    public int size(){
+        return size;
+    }
+}
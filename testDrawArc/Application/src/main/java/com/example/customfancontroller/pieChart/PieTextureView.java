@@ -0,0 +1,198 @@
+package com.example.customfancontroller.pieChart;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+
+import com.example.customfancontroller.TextureRenderView;
+
+import java.util.ArrayList;
+
+/**
+ * Render-thread variant of {@link PieView} with the same public API. Data
+ * updates, animation, hit-testing and drawing all run on a dedicated render
+ * thread; the UI thread only forwards calls and touches, and receives
+ * {@link PieView.OnPieClickListener} callbacks.
+ *
+ * The lists and pies passed in are used on the render thread, so they must
+ * not be modified afterwards.
+ */
+public class PieTextureView extends TextureRenderView {
+
+    private PieView.OnPieClickListener onPieClickListener;
+
+    // Render thread state.
+    private final PieRenderer renderer;
+    private long lastFrameTime = -1;
+
+    public PieTextureView(Context context){
+        this(context, null);
+    }
+
+    public PieTextureView(Context context, AttributeSet attrs){
+        super(context, attrs);
+        renderer = new PieRenderer(context);
+    }
+
+    public void showPercentLabel(final boolean show){
+        queueEvent(new Runnable() {
+            @Override
+            public void run() {
+                renderer.showPercentLabel = show;
+                requestRender();
+            }
+        });
+    }
+
+    public void setLevelOfDetail(final boolean enabled){
+        queueEvent(new Runnable() {
+            @Override
+            public void run() {
+                renderer.levelOfDetail = enabled;
+                requestRender();
+            }
+        });
+    }
+
+    public void setOnPieClickListener(PieView.OnPieClickListener listener){
+        onPieClickListener = listener;
+    }
+
+    public void setDate(ArrayList<PieHelper> helperList){
+        if(helperList != null){
+            PieSnapshot.layOut(helperList);
+        }
+        final PieSnapshot pies = PieSnapshot.build(helperList);
+        removeSelectedPie();
+        queueEvent(new Runnable() {
+            @Override
+            public void run() {
+                renderer.setDate(pies);
+                startAnimation();
+            }
+        });
+    }
+
+    /**
+     * See {@link PieView#updateDate(ArrayList)}.
+     */
+    public void updateDate(ArrayList<PieHelper> helperList){
+        if(helperList == null || helperList.isEmpty()){
+            setDate(helperList);
+            return;
+        }
+        PieSnapshot.layOut(helperList);
+        final PieSnapshot pies = PieSnapshot.build(helperList);
+        queueEvent(new Runnable() {
+            @Override
+            public void run() {
+                int previous = renderer.selectedIndex;
+                int selected = renderer.mergeDate(pies);
+                if(selected != previous){
+                    notifyPieClick(selected);
+                }
+                startAnimation();
+            }
+        });
+    }
+
+    /**
+     * See {@link PieView#updatePie(Object, float)}. Unknown keys are ignored.
+     */
+    public void updatePie(final Object key, final float percent){
+        queueEvent(new Runnable() {
+            @Override
+            public void run() {
+                if(renderer.updatePie(key, percent)){
+                    startAnimation();
+                }
+            }
+        });
+    }
+
+    public void selectedPie(final int index){
+        queueEvent(new Runnable() {
+            @Override
+            public void run() {
+                renderer.select(index);
+                requestRender();
+            }
+        });
+        if(onPieClickListener!=null) onPieClickListener.onPieClick(index);
+    }
+
+    public void removeSelectedPie(){
+        selectedPie(PieView.NO_SELECTED_INDEX);
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (event.getAction() == MotionEvent.ACTION_DOWN ||event.getAction() == MotionEvent.ACTION_MOVE){
+            final int x = (int) event.getX();
+            final int y = (int) event.getY();
+            queueEvent(new Runnable() {
+                @Override
+                public void run() {
+                    int selectedIndex = renderer.findPointAt(x, y);
+                    renderer.select(selectedIndex);
+                    notifyPieClick(selectedIndex);
+                    requestRender();
+                }
+            });
+        }
+
+        return true;
+    }
+
+    /**
+     * Deliver a selection change from the render thread to the listener on
+     * the UI thread.
+     */
+    private void notifyPieClick(final int index){
+        post(new Runnable() {
+            @Override
+            public void run() {
+                if(onPieClickListener != null){
+                    onPieClickListener.onPieClick(index);
+                }
+            }
+        });
+    }
+
+    private void startAnimation(){
+        if(lastFrameTime < 0){
+            requestRender();
+        }
+    }
+
+    @Override
+    protected void onRenderSizeChanged(int width, int height) {
+        renderer.setSize(width, height);
+    }
+
+    @Override
+    protected boolean onRenderFrame(long frameTimeMillis) {
+        long elapsed = lastFrameTime < 0 ? 0 : frameTimeMillis - lastFrameTime;
+        boolean needNewFrame = renderer.pies.update(elapsed);
+        lastFrameTime = needNewFrame ? frameTimeMillis : -1;
+        return needNewFrame;
+    }
+
+    @Override
+    protected void onRender(Canvas canvas) {
+        renderer.draw(canvas);
+    }
+
+    @Override
+    protected void onRenderRelease() {
+        lastFrameTime = -1;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int viewWidth = PieView.getMeasurement(widthMeasureSpec, 3);
+        int viewHeight = PieView.getMeasurement(heightMeasureSpec, viewWidth);
+        setMeasuredDimension(viewWidth, viewHeight);
+    }
+}
@@ -2,16 +2,17 @@ package com.example.customfancontroller.pieChart;
 
 import android.content.Context;
 import android.graphics.Canvas;
-import android.graphics.Color;
-import android.graphics.Paint;
-import android.graphics.Point;
 import android.graphics.Rect;
-import android.graphics.RectF;
+import android.support.v4.view.ViewCompat;
 import android.util.AttributeSet;
 import android.view.MotionEvent;
 import android.view.View;
 
+import com.example.customfancontroller.ChartFrameClock;
+import com.example.customfancontroller.ChartFrameMetrics;
+
 import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * http://www.androidtrainee.com/draw-android-pie-chart-with-animation/
@@ -22,46 +23,54 @@ public class PieView extends View {
         void onPieClick(int index);
     }
 
-    private Paint cirPaint;
-    private Paint whiteLinePaint;
-    private Point pieCenterPoint;
-    private Paint textPaint;
-    private RectF cirRect;
-    private RectF cirSelectedRect;
-
     private int mViewWidth;
-    private int mViewHeight;
-    private int margin;
-    private int pieRadius;
 
+    private final PieRenderer renderer;
     private OnPieClickListener onPieClickListener;
 
-    private ArrayList<PieHelper> pieHelperList;
-    private int selectedIndex = NO_SELECTED_INDEX;
-
-    private boolean showPercentLabel = true;
     public static final int NO_SELECTED_INDEX = -999;
-    private final int[] DEFAULT_COLOR_LIST = {Color.parseColor("#33B5E5"),
-            Color.parseColor("#AA66CC"),
-            Color.parseColor("#99CC00"),
-            Color.parseColor("#FFBB33"),
-            Color.parseColor("#FF4444")};
 
+    // Frame time of the previous animation step, or -1 when not animating.
+    private long lastFrameTime = -1;
+
+    private ChartFrameMetrics frameMetrics;  // Null unless instrumented.
+    private final Rect dirtyRect = new Rect();
 
-    private Runnable animator = new Runnable() {
+    /**
+     * Steps every pie by the time elapsed since the previous frame, on the
+     * shared {@link ChartFrameClock}, until all pies are at rest.
+     */
+    private final ChartFrameClock.FrameCallback animator = new ChartFrameClock.FrameCallback() {
         @Override
-        public void run() {
-            boolean needNewFrame = false;
-            for(PieHelper pie : pieHelperList){
-                pie.update();
-                if(!pie.isAtRest()){
-                    needNewFrame = true;
-                }
+        public boolean doFrame(long frameTimeMillis) {
+            final ChartFrameMetrics metrics = frameMetrics;
+            final long start = metrics != null ? metrics.begin() : 0;
+            long elapsed = lastFrameTime < 0 ? 0 : frameTimeMillis - lastFrameTime;
+            lastFrameTime = frameTimeMillis;
+
+            boolean needNewFrame = renderer.step(elapsed);
+            if(metrics != null){
+                metrics.endTick(start);
             }
-            if (needNewFrame) {
-                postDelayed(this, 10);
+            if (!needNewFrame) {
+                lastFrameTime = -1;
+            }
+            invalidateChanged();
+            return needNewFrame;
+        }
+    };
+
+    // Snapshot posted by postDate() and not yet swapped in. A delivery is
+    // posted whenever it goes from null to a snapshot.
+    private final AtomicReference<PieSnapshot> pendingSnapshot = new AtomicReference<PieSnapshot>();
+
+    private final Runnable swapSnapshot = new Runnable() {
+        @Override
+        public void run() {
+            PieSnapshot snapshot = pendingSnapshot.getAndSet(null);
+            if(snapshot != null){
+                mergeDate(snapshot);
             }
-            invalidate();
         }
     };
 
@@ -71,26 +80,21 @@ public class PieView extends View {
     public PieView(Context context, AttributeSet attrs){
         super(context, attrs);
 
-        pieHelperList = new ArrayList<PieHelper>();
-        cirPaint = new Paint();
-        cirPaint.setAntiAlias(true);
-        cirPaint.setColor(Color.GRAY);
-        whiteLinePaint = new Paint(cirPaint);
-        whiteLinePaint.setColor(Color.WHITE);
-        whiteLinePaint.setStrokeWidth(2f);
-        textPaint = new Paint();
-        textPaint.setAntiAlias(true);
-        textPaint.setColor(Color.WHITE);
-        textPaint.setTextSize(MyUtils.sp2px(getContext(), 13));
-        textPaint.setStrokeWidth(5);
-        textPaint.setTextAlign(Paint.Align.CENTER);
-        pieCenterPoint = new Point();
-        cirRect = new RectF();
-        cirSelectedRect = new RectF();
+        renderer = new PieRenderer(context);
     }
 
     public void showPercentLabel(boolean show){
-        showPercentLabel = show;
+        renderer.showPercentLabel = show;
+        postInvalidate();
+    }
+
+    /**
+     * When enabled, runs of pies too narrow to cover a pixel at the current
+     * radius are drawn as a single aggregate wedge. Hit-testing and the
+     * click listener still report the original pie indices.
+     */
+    public void setLevelOfDetail(boolean enabled){
+        renderer.levelOfDetail = enabled;
         postInvalidate();
     }
 
@@ -99,148 +103,201 @@ public class PieView extends View {
     }
 
     public void setDate(ArrayList<PieHelper> helperList){
-        initPies(helperList);
-        pieHelperList.clear();
+        if(helperList != null){
+            PieSnapshot.layOut(helperList);
+        }
+        replaceDate(PieSnapshot.build(helperList));
+    }
+
+    private void replaceDate(PieSnapshot snapshot){
         removeSelectedPie();
 
-        if(helperList != null && !helperList.isEmpty()){
-            for(PieHelper pieHelper:helperList){
-                pieHelperList.add(new PieHelper(pieHelper.getStartDegree(),pieHelper.getStartDegree(),pieHelper));
-            }
-        }else {
-            pieHelperList.clear();
+        renderer.setDate(snapshot);
+
+        startAnimation();
+    }
+
+    /**
+     * Update the chart to a new dataset without restarting it. Pies are
+     * matched to the current ones by {@link PieHelper#setKey key} (or by
+     * index when they have none); matched pies animate from where they are
+     * to their new place, new pies grow in and removed pies are dropped.
+     * The selection follows its pie if that pie is still present.
+     */
+    public void updateDate(ArrayList<PieHelper> helperList){
+        if(helperList != null){
+            PieSnapshot.layOut(helperList);
         }
+        mergeDate(PieSnapshot.build(helperList));
+    }
 
-        removeCallbacks(animator);
-        post(animator);
+    /**
+     * Hand over a dataset built with {@link PieSnapshot#build} from any
+     * thread. It is swapped in on the next frame and merged like
+     * {@link #updateDate(ArrayList)}; if several snapshots are posted before
+     * then, only the newest is used. Drawing and touch handling keep using
+     * the current dataset until the swap, and never wait for the caller.
+     * A null or empty snapshot clears the chart.
+     */
+    public void postDate(PieSnapshot snapshot){
+        if(snapshot == null){
+            snapshot = PieSnapshot.build(null);
+        }
+        if(pendingSnapshot.getAndSet(snapshot) == null){
+            ViewCompat.postOnAnimation(this, swapSnapshot);
+        }
+    }
 
+    private void mergeDate(PieSnapshot snapshot){
+        if(snapshot.size == 0){
+            replaceDate(snapshot);
+            return;
+        }
+        int previous = renderer.selectedIndex;
+        int selected = renderer.mergeDate(snapshot);
 
+        if(selected != previous && onPieClickListener != null){
+            onPieClickListener.onPieClick(selected);
+        }
+        if(lastFrameTime < 0){
+            startAnimation();
+        }
+        invalidateChanged();
     }
 
+    /**
+     * Change the value of a single keyed pie, animating it and the pies
+     * after it from their current positions.
+     *
+     * @return false if no pie has the given key
+     */
+    public boolean updatePie(Object key, float percent){
+        if(!renderer.updatePie(key, percent)){
+            return false;
+        }
+        if(lastFrameTime < 0){
+            startAnimation();
+        }
+        return true;
+    }
+
+    private void startAnimation(){
+        lastFrameTime = -1;
+        ChartFrameClock.getInstance().add(animator);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        ChartFrameClock.getInstance().remove(animator);
+        lastFrameTime = -1;
+    }
 
-    private void initPies(ArrayList<PieHelper> helperList){
-        float totalAngel = 270;
-        for(PieHelper pie:helperList){
-            pie.setDegree(totalAngel, totalAngel + pie.getSweep());
-            totalAngel += pie.getSweep();
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        // A swap posted from another thread while detached may have been
+        // dropped.
+        if(pendingSnapshot.get() != null){
+            removeCallbacks(swapSnapshot);
+            ViewCompat.postOnAnimation(this, swapSnapshot);
+        }
+        if(!renderer.pies.isAtRest()){
+            startAnimation();
         }
     }
 
+
     public void selectedPie(int index){
-        selectedIndex = index;
+        renderer.select(index);
         if(onPieClickListener!=null) onPieClickListener.onPieClick(index);
-        postInvalidate();
+        postInvalidateChanged();
     }
 
     public void removeSelectedPie(){
-        selectedIndex = NO_SELECTED_INDEX;
+        renderer.select(NO_SELECTED_INDEX);
         if(onPieClickListener!=null) onPieClickListener.onPieClick(NO_SELECTED_INDEX);
-        postInvalidate();
+        postInvalidateChanged();
     }
 
-    @Override
-    protected void onDraw(Canvas canvas) {
-        if(pieHelperList.isEmpty()){
-            return ;
-        }
+    /**
+     * Record frame timings of this view into {@code metrics}, or stop with
+     * null.
+     */
+    public void setFrameMetrics(ChartFrameMetrics metrics) {
+        frameMetrics = metrics;
+    }
 
-        int index = 0;
-        for(PieHelper pieHelper : pieHelperList){
-            boolean selected = (selectedIndex == index);
-            RectF rect = selected? cirSelectedRect: cirRect;
-            if(pieHelper.isColorSetted()){
-                cirPaint.setColor(pieHelper.getColor());
-            }else {
-                cirPaint.setColor(DEFAULT_COLOR_LIST[index%5]);
-            }
-            canvas.drawArc(rect, pieHelper.getStartDegree(), pieHelper.getSweep(), true, cirPaint);
-            drawPercentText(canvas, pieHelper);
+    public ChartFrameMetrics getFrameMetrics() {
+        return frameMetrics;
+    }
 
-            drawLineBesideCir(canvas, pieHelper.getStartDegree(), selected);
-            drawLineBesideCir(canvas, pieHelper.getEndDegree(), selected);
-            index++;
+    @Override
+    public void invalidate() {
+        final ChartFrameMetrics metrics = frameMetrics;
+        if(metrics != null){
+            metrics.recordInvalidate();
         }
+        super.invalidate();
+    }
 
+    @Override
+    public void invalidate(int l, int t, int r, int b) {
+        final ChartFrameMetrics metrics = frameMetrics;
+        if(metrics != null){
+            metrics.recordInvalidate();
+        }
+        super.invalidate(l, t, r, b);
     }
 
-    private void drawLineBesideCir(Canvas canvas, float angel, boolean selectedCir){
-        int sth2 = selectedCir? mViewHeight/2 : pieRadius; // Sorry I'm really don't know how to name the variable..
-        int sth = 1;                                       // And it's
-        if(angel%360 > 180 && angel%360 < 360){
-            sth = -1;
+    /**
+     * Invalidate only what the renderer changed since the last frame: the
+     * wedges that moved or changed selection, or everything after a new
+     * dataset or size.
+     */
+    private void invalidateChanged(){
+        if(renderer.consumeDirtyRegion(dirtyRect)){
+            invalidate(dirtyRect.left, dirtyRect.top, dirtyRect.right, dirtyRect.bottom);
         }
-        float lineToX = (float)(mViewHeight/2 + Math.cos(Math.toRadians(-angel)) * sth2);
-        float lineToY = (float)(mViewHeight/2 + sth * Math.abs(Math.sin(Math.toRadians(-angel))) * sth2);
-        canvas.drawLine(pieCenterPoint.x, pieCenterPoint.y, lineToX, lineToY, whiteLinePaint);
     }
 
-    private void drawPercentText(Canvas canvas, PieHelper pieHelper){
-        if(!showPercentLabel) return ;
-        float angel = (pieHelper.getStartDegree() + pieHelper.getEndDegree()) /2;
-        int sth = 1;
-        if(angel%360 > 180 && angel%360 < 360){
-            sth = -1;
+    private void postInvalidateChanged(){
+        if(renderer.consumeDirtyRegion(dirtyRect)){
+            postInvalidate(dirtyRect.left, dirtyRect.top, dirtyRect.right, dirtyRect.bottom);
         }
-        float x = (float)(mViewHeight/2 + Math.cos(Math.toRadians(-angel)) * pieRadius/2);
-        float y = (float)(mViewHeight/2 + sth * Math.abs(Math.sin(Math.toRadians(-angel))) * pieRadius/2);
-        canvas.drawText(pieHelper.getPercentStr(), x, y, textPaint);
     }
 
-    private void drawText(Canvas canvas, PieHelper pieHelper){
-        if(pieHelper.getTitle() == null) return ;
-        float angel = (pieHelper.getStartDegree() + pieHelper.getEndDegree()) /2;
-        int sth = 1;
-        if(angel%360 > 180 && angel%360 < 360){
-            sth = -1;
+    @Override
+    protected void onDraw(Canvas canvas) {
+        final ChartFrameMetrics metrics = frameMetrics;
+        final long start = metrics != null ? metrics.begin() : 0;
+        renderer.draw(canvas);
+        if(metrics != null){
+            metrics.endDraw(start);
         }
-        float x = (float)(mViewHeight/2 + Math.cos(Math.toRadians(-angel)) * pieRadius/2);
-        float y = (float)(mViewHeight/2 + sth * Math.abs(Math.sin(Math.toRadians(-angel))) * pieRadius/2);
-        canvas.drawText(pieHelper.getTitle(), x, y, textPaint);
     }
 
     @Override
     public boolean onTouchEvent(MotionEvent event) {
         if (event.getAction() == MotionEvent.ACTION_DOWN ||event.getAction() == MotionEvent.ACTION_MOVE){
-            selectedIndex = findPointAt((int) event.getX(), (int) event.getY());
+            int selectedIndex = renderer.findPointAt((int) event.getX(), (int) event.getY());
+            renderer.select(selectedIndex);
             if(onPieClickListener != null){
                 onPieClickListener.onPieClick(selectedIndex);
             }
-            postInvalidate();
+            invalidateChanged();
         }
 
         return true;
     }
 
 
-    private int findPointAt(int x, int y){
-        double degree = Math.atan2(x-pieCenterPoint.x, y-pieCenterPoint.y)* 180 / Math.PI;
-        degree = -(degree-180) + 270;
-        int index = 0;
-        for(PieHelper pieHelper:pieHelperList){
-            if(degree>=pieHelper.getStartDegree() && degree<=pieHelper.getEndDegree()){
-                return index;
-            }
-            index++;
-        }
-        return NO_SELECTED_INDEX;
-    }
-
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
         mViewWidth = measureWidth(widthMeasureSpec);
-        mViewHeight = measureHeight(heightMeasureSpec);
-        margin = mViewWidth/16;
-        pieRadius = (mViewWidth)/2-margin;
-        pieCenterPoint.set(pieRadius+margin, pieRadius+margin);
-        cirRect.set(pieCenterPoint.x-pieRadius,
-                pieCenterPoint.y-pieRadius,
-                pieCenterPoint.x+pieRadius,
-                pieCenterPoint.y+pieRadius);
-        cirSelectedRect.set(2, //minor margin for bigger circle
-                2,
-                mViewWidth-2,
-                mViewHeight-2);
-        setMeasuredDimension(mViewWidth, mViewHeight);
+        int viewHeight = measureHeight(heightMeasureSpec);
+        renderer.setSize(mViewWidth, viewHeight);
+        setMeasuredDimension(mViewWidth, viewHeight);
     }
 
     private int measureWidth(int measureSpec){
@@ -253,7 +310,7 @@ public class PieView extends View {
         return getMeasurement(measureSpec, preferred);
     }
 
-    private int getMeasurement(int measureSpec, int preferred){
+    static int getMeasurement(int measureSpec, int preferred){
         int specSize = View.MeasureSpec.getSize(measureSpec);
         int measurement;
 
@@ -0,0 +1,111 @@
+package com.example.customfancontroller;
+
+import android.view.View;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.fail;
+
+/**
+ * Helpers for the headless view tests: laying a view out without a window,
+ * stepping the shared {@link ChartFrameClock} by hand and counting the
+ * bytes the test thread allocates.
+ */
+public final class ChartTestUtils {
+
+    /**
+     * Time between two frames stepped by {@link #dispatchFrame}.
+     */
+    public static final long FRAME_MILLIS = 16;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // Bytes allocated by reading the counter itself, taken off every
+    // measurement.
+    private static final long COUNTER_OVERHEAD = measureCounterOverhead();
+
+    private static long sFrameTime = 1000;
+
+    private ChartTestUtils() {
+    }
+
+    /**
+     * Measure and lay out the view at exactly the given size, as its parent
+     * would.
+     */
+    public static void layOut(View view, int width, int height) {
+        view.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(height, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, width, height);
+    }
+
+    /**
+     * Tick every callback registered with the frame clock once, as the next
+     * vsync would.
+     */
+    public static void dispatchFrame() {
+        sFrameTime += FRAME_MILLIS;
+        ChartFrameClock.getInstance().dispatchFrame(sFrameTime);
+    }
+
+    /**
+     * Unregister every animation left on the frame clock, so that the next
+     * test only ticks its own view.
+     */
+    public static void resetFrameClock() {
+        ChartFrameClock.getInstance().removeAll();
+    }
+
+    /**
+     * @return the bytes allocated by the calling thread so far; pass it to
+     * {@link #allocatedSince}
+     */
+    public static long allocatedBytes() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * @return the bytes the calling thread allocated since
+     * {@link #allocatedBytes()} returned {@code start}
+     */
+    public static long allocatedSince(long start) {
+        return Math.max(0, allocatedBytes() - start - COUNTER_OVERHEAD);
+    }
+
+    /**
+     * Step the frame clock and run {@code frame} once per frame, for
+     * {@code frames} frames. Measuring a long run rather than single frames
+     * averages out the noise of the counter itself.
+     *
+     * @return the bytes allocated per frame, rounded down
+     */
+    public static long allocatedPerFrame(int frames, Runnable frame) {
+        long start = allocatedBytes();
+        for (int i = 0; i < frames; i++) {
+            dispatchFrame();
+            frame.run();
+        }
+        return allocatedSince(start) / frames;
+    }
+
+    /**
+     * Fail unless {@code bytesPerFrame} is within the allocation budget of
+     * {@code what}.
+     */
+    public static void assertWithinBudget(String what, long budget, long bytesPerFrame) {
+        if (bytesPerFrame > budget) {
+            fail(what + " allocated " + bytesPerFrame + " bytes per frame, budget is " + budget);
+        }
+    }
+
+    private static long measureCounterOverhead() {
+        long overhead = Long.MAX_VALUE;
+        for (int i = 0; i < 100; i++) {
+            long start = THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+            long end = THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+            overhead = Math.min(overhead, end - start);
+        }
+        return overhead;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.customfancontroller;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+/**
+ * Holds {@link CircleView} frames to their allocation budget, at rest and
+ * while the angle animates.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 25)
+public class CircleViewAllocationTest {
+
+    private static final int SIZE = 400;
+    private static final int FRAMES = 600;
+    private static final long DURATION = FRAMES * ChartTestUtils.FRAME_MILLIS;
+
+    // Bytes a frame may allocate.
+    private static final long BUDGET = 0;
+
+    private CircleView view;
+    private NullCanvas canvas;
+
+    private final Runnable drawFrame = new Runnable() {
+        @Override
+        public void run() {
+            view.onDraw(canvas);
+        }
+    };
+
+    @Before
+    public void setUp() {
+        view = new CircleView(RuntimeEnvironment.application, null);
+        ChartTestUtils.layOut(view, SIZE, SIZE);
+        canvas = new NullCanvas();
+
+        view.animateAngleTo(360, DURATION / 4);
+        ChartTestUtils.allocatedPerFrame(FRAMES, drawFrame);
+    }
+
+    @After
+    public void tearDown() {
+        ChartTestUtils.resetFrameClock();
+    }
+
+    @Test
+    public void drawAtRestStaysWithinBudget() {
+        long start = ChartTestUtils.allocatedBytes();
+        for (int i = 0; i < FRAMES; i++) {
+            view.onDraw(canvas);
+        }
+        ChartTestUtils.assertWithinBudget("onDraw()", BUDGET, ChartTestUtils.allocatedSince(start) / FRAMES);
+    }
+
+    @Test
+    public void angleAnimationStaysWithinBudget() {
+        CircleAngleAnimation animation = new CircleAngleAnimation(view, 0);
+        animation.setDuration(DURATION);
+        animation.start();
+        ChartTestUtils.assertWithinBudget("angle animation frame", BUDGET,
+                ChartTestUtils.allocatedPerFrame(FRAMES, drawFrame));
+    }
+}
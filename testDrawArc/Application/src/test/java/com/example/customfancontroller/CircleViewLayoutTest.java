@@ -0,0 +1,99 @@
+package com.example.customfancontroller;
+
+import android.animation.ObjectAnimator;
+import android.content.Context;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that animating the {@link CircleView} angle only redraws the view
+ * and never asks for a layout pass.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 25)
+public class CircleViewLayoutTest {
+
+    private static final int SIZE = 400;
+    private static final long DURATION = 1000;
+    private static final int TARGET_ANGLE = 240;
+
+    /**
+     * Counts the layout passes asked for after it was laid out.
+     */
+    private static class LayoutCountingCircleView extends CircleView {
+
+        int layoutRequests;
+
+        LayoutCountingCircleView(Context context) {
+            super(context, null);
+        }
+
+        @Override
+        public void requestLayout() {
+            layoutRequests++;
+            super.requestLayout();
+        }
+    }
+
+    private LayoutCountingCircleView view;
+
+    @Before
+    public void setUp() {
+        view = new LayoutCountingCircleView(RuntimeEnvironment.application);
+        ChartTestUtils.layOut(view, SIZE, SIZE);
+        view.layoutRequests = 0;
+    }
+
+    @After
+    public void tearDown() {
+        ChartTestUtils.resetFrameClock();
+    }
+
+    @Test
+    public void angleAnimationDoesNotLayOut() {
+        CircleAngleAnimation animation = new CircleAngleAnimation(view, TARGET_ANGLE);
+        animation.setDuration(DURATION);
+        animation.start();
+        for (long time = 0; time <= DURATION + ChartTestUtils.FRAME_MILLIS; time += ChartTestUtils.FRAME_MILLIS) {
+            ChartTestUtils.dispatchFrame();
+        }
+
+        assertEquals(TARGET_ANGLE, view.getAngle(), 0);
+        assertEquals("layout passes", 0, view.layoutRequests);
+    }
+
+    @Test
+    public void startedViewAnimationDoesNotLayOut() {
+        CircleAngleAnimation animation = new CircleAngleAnimation(view, TARGET_ANGLE);
+        animation.setDuration(DURATION);
+        view.startAnimation(animation);
+        // The parent initializes the animation on the first frame it runs.
+        animation.initialize(SIZE, SIZE, SIZE, SIZE);
+        for (long time = 0; time <= DURATION + ChartTestUtils.FRAME_MILLIS; time += ChartTestUtils.FRAME_MILLIS) {
+            ChartTestUtils.dispatchFrame();
+        }
+
+        assertEquals(TARGET_ANGLE, view.getAngle(), 0);
+        assertEquals("layout passes", 0, view.layoutRequests);
+    }
+
+    @Test
+    public void angleAnimatorDoesNotLayOut() {
+        ObjectAnimator animator = view.animateAngle(TARGET_ANGLE, DURATION);
+        for (long time = 0; time <= DURATION; time += ChartTestUtils.FRAME_MILLIS) {
+            animator.setCurrentPlayTime(time);
+        }
+        animator.setCurrentPlayTime(DURATION);
+
+        assertEquals(TARGET_ANGLE, view.getAngle(), 0);
+        assertEquals("layout passes", 0, view.layoutRequests);
+    }
+}
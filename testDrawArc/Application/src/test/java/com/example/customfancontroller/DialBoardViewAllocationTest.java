@@ -0,0 +1,85 @@
+package com.example.customfancontroller;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Holds {@link DialBoardView} frames to their allocation budget with dials
+ * of five distinct selection counts, each in both dial colors, so that
+ * the board draws more static layers than a style keeps by default.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 25)
+public class DialBoardViewAllocationTest {
+
+    private static final int COLUMNS = 5;
+    private static final int CELL_SIZE = 200;
+    private static final int FRAMES = 600;
+    private static final int[] SELECTION_COUNTS = {12, 24, 60, 100, 360};
+
+    // Bytes a frame may allocate.
+    private static final long BUDGET = 0;
+
+    private DialBoardView view;
+    private NullCanvas canvas;
+
+    private final Runnable drawFrame = new Runnable() {
+        @Override
+        public void run() {
+            view.onDraw(canvas);
+        }
+    };
+
+    @Before
+    public void setUp() {
+        view = new DialBoardView(RuntimeEnvironment.application);
+        view.setColumns(COLUMNS);
+        view.setDialCount(2 * COLUMNS);
+        ChartTestUtils.layOut(view, COLUMNS * CELL_SIZE, 2 * CELL_SIZE);
+        canvas = new NullCanvas(COLUMNS * CELL_SIZE, 2 * CELL_SIZE);
+
+        // The first row rests on position 0 and the second row is moved
+        // off it, so every count is drawn in both dial colors.
+        for (int i = 0; i < COLUMNS; i++) {
+            view.setSelectionCount(i, SELECTION_COUNTS[i]);
+            view.setSelectionCount(COLUMNS + i, SELECTION_COUNTS[i]);
+            view.advanceSelection(COLUMNS + i);
+        }
+        ChartTestUtils.allocatedPerFrame(2 * FRAMES, drawFrame);
+    }
+
+    @After
+    public void tearDown() {
+        ChartTestUtils.resetFrameClock();
+    }
+
+    @Test
+    public void drawAtRestStaysWithinBudget() {
+        canvas.drawCalls = 0;
+        long start = ChartTestUtils.allocatedBytes();
+        for (int i = 0; i < FRAMES; i++) {
+            view.onDraw(canvas);
+        }
+        long bytesPerFrame = ChartTestUtils.allocatedSince(start) / FRAMES;
+        assertTrue("no dial was drawn", canvas.drawCalls > 0);
+        ChartTestUtils.assertWithinBudget("onDraw()", BUDGET, bytesPerFrame);
+    }
+
+    @Test
+    public void animationStaysWithinBudget() {
+        for (int i = COLUMNS; i < 2 * COLUMNS; i++) {
+            for (int step = 0; step < 10; step++) {
+                view.advanceSelection(i);
+            }
+        }
+        ChartTestUtils.assertWithinBudget("animation frame", BUDGET,
+                ChartTestUtils.allocatedPerFrame(FRAMES, drawFrame));
+    }
+}
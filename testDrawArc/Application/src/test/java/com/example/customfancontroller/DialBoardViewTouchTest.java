@@ -0,0 +1,69 @@
+package com.example.customfancontroller;
+
+import android.view.MotionEvent;
+import android.view.View;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that a completed tap on a {@link DialBoardView} dial goes through
+ * performClick(), and that a touch leaving the dial does not.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 25)
+public class DialBoardViewTouchTest {
+
+    private static final int CELL_SIZE = 200;
+
+    private DialBoardView view;
+    private int clicks;
+
+    @Before
+    public void setUp() {
+        view = new DialBoardView(RuntimeEnvironment.application);
+        view.setColumns(2);
+        view.setDialCount(2);
+        ChartTestUtils.layOut(view, 2 * CELL_SIZE, CELL_SIZE);
+        view.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                clicks++;
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        ChartTestUtils.resetFrameClock();
+    }
+
+    @Test
+    public void tapPerformsClick() {
+        touch(MotionEvent.ACTION_DOWN, CELL_SIZE / 2);
+        touch(MotionEvent.ACTION_UP, CELL_SIZE / 2);
+
+        assertEquals("clicks", 1, clicks);
+    }
+
+    @Test
+    public void touchLeavingTheDialDoesNotClick() {
+        touch(MotionEvent.ACTION_DOWN, CELL_SIZE / 2);
+        touch(MotionEvent.ACTION_UP, CELL_SIZE + CELL_SIZE / 2);
+
+        assertEquals("clicks", 0, clicks);
+    }
+
+    private void touch(int action, float x) {
+        MotionEvent event = MotionEvent.obtain(0, 0, action, x, CELL_SIZE / 2, 0);
+        view.onTouchEvent(event);
+        event.recycle();
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.customfancontroller;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+/**
+ * Holds {@link DialView} frames to their allocation budget, at rest and
+ * while the marker animates.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 25)
+public class DialViewAllocationTest {
+
+    private static final int SIZE = 480;
+    private static final int FRAMES = 600;
+
+    // Bytes a frame may allocate.
+    private static final long BUDGET = 0;
+
+    private DialView view;
+    private NullCanvas canvas;
+
+    private final Runnable drawFrame = new Runnable() {
+        @Override
+        public void run() {
+            view.onDraw(canvas);
+        }
+    };
+
+    @Before
+    public void setUp() {
+        view = new DialView(RuntimeEnvironment.application);
+        ChartTestUtils.layOut(view, SIZE, SIZE);
+        canvas = new NullCanvas();
+
+        // The first draws build the static layers and the label glyphs, and
+        // one full turn warms up every code path measured below.
+        for (int i = 0; i < DialRenderer.DEFAULT_SELECTION_COUNT; i++) {
+            view.performClick();
+        }
+        ChartTestUtils.allocatedPerFrame(2 * FRAMES, drawFrame);
+    }
+
+    @After
+    public void tearDown() {
+        ChartTestUtils.resetFrameClock();
+    }
+
+    @Test
+    public void drawAtRestDoesNotAllocate() {
+        long start = ChartTestUtils.allocatedBytes();
+        for (int i = 0; i < FRAMES; i++) {
+            view.onDraw(canvas);
+        }
+        ChartTestUtils.assertWithinBudget("onDraw()", BUDGET, ChartTestUtils.allocatedSince(start) / FRAMES);
+    }
+
+    @Test
+    public void animationFramesDoNotAllocate() {
+        // Every click adds a second to the marker's journey.
+        for (int i = 0; i < DialRenderer.DEFAULT_SELECTION_COUNT; i++) {
+            view.performClick();
+        }
+        ChartTestUtils.assertWithinBudget("animation frame", BUDGET,
+                ChartTestUtils.allocatedPerFrame(FRAMES, drawFrame));
+    }
+
+    @Test
+    public void animateArcStaysWithinBudget() {
+        // Build the static layers of the new count, off and on, first.
+        view.setSelectionCount(360);
+        view.performClick();
+        ChartTestUtils.allocatedPerFrame(FRAMES, drawFrame);
+        for (int i = 0; i < 90; i++) {
+            view.performClick();
+        }
+        view.animateArc(1000);
+        ChartTestUtils.assertWithinBudget("animateArc() frame", BUDGET,
+                ChartTestUtils.allocatedPerFrame(FRAMES, drawFrame));
+    }
+}
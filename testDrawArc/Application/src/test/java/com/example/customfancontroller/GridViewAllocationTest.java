@@ -0,0 +1,52 @@
+package com.example.customfancontroller;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+/**
+ * Holds {@link GridView} frames to their allocation budget.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 25)
+public class GridViewAllocationTest {
+
+    private static final int SIZE = 400;
+    private static final int FRAMES = 600;
+
+    // Bytes a frame may allocate.
+    private static final long BUDGET = 0;
+
+    private GridView view;
+    private NullCanvas canvas;
+
+    private final Runnable drawFrame = new Runnable() {
+        @Override
+        public void run() {
+            view.onDraw(canvas);
+        }
+    };
+
+    @Before
+    public void setUp() {
+        view = new GridView(RuntimeEnvironment.application);
+        ChartTestUtils.layOut(view, SIZE, SIZE);
+        canvas = new NullCanvas();
+        ChartTestUtils.allocatedPerFrame(FRAMES, drawFrame);
+    }
+
+    @After
+    public void tearDown() {
+        ChartTestUtils.resetFrameClock();
+    }
+
+    @Test
+    public void drawStaysWithinBudget() {
+        ChartTestUtils.assertWithinBudget("onDraw()", BUDGET,
+                ChartTestUtils.allocatedPerFrame(FRAMES, drawFrame));
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.customfancontroller;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+/**
+ * Canvas that drops everything drawn on it and only counts the calls, so
+ * tests measure the work of the view rather than of the drawing backend.
+ */
+public class NullCanvas extends Canvas {
+
+    public int drawCalls;
+
+    private final int width;
+    private final int height;
+
+    public NullCanvas() {
+        this(0, 0);
+    }
+
+    /**
+     * @param width  width of the clip reported to views that skip what
+     *               lies outside it
+     * @param height height of that clip
+     */
+    public NullCanvas(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    @Override
+    public boolean getClipBounds(Rect bounds) {
+        bounds.set(0, 0, width, height);
+        return width > 0 && height > 0;
+    }
+
+    @Override
+    public void drawArc(RectF oval, float startAngle, float sweepAngle, boolean useCenter, Paint paint) {
+        drawCalls++;
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+        drawCalls++;
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, Rect src, Rect dst, Paint paint) {
+        drawCalls++;
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, Rect src, RectF dst, Paint paint) {
+        drawCalls++;
+    }
+
+    @Override
+    public void drawCircle(float cx, float cy, float radius, Paint paint) {
+        drawCalls++;
+    }
+
+    @Override
+    public void drawLine(float startX, float startY, float stopX, float stopY, Paint paint) {
+        drawCalls++;
+    }
+
+    @Override
+    public void drawLines(float[] pts, Paint paint) {
+        drawCalls++;
+    }
+
+    @Override
+    public void drawLines(float[] pts, int offset, int count, Paint paint) {
+        drawCalls++;
+    }
+
+    @Override
+    public void drawText(String text, float x, float y, Paint paint) {
+        drawCalls++;
+    }
+
+    @Override
+    public void drawText(char[] text, int index, int count, float x, float y, Paint paint) {
+        drawCalls++;
+    }
+}
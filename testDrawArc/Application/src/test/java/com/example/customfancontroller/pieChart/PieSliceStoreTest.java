@@ -0,0 +1,92 @@
+package com.example.customfancontroller.pieChart;
+
+import com.example.customfancontroller.ChartTestUtils;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that keyed dataset merges find every pie by its key and, once the
+ * stores have grown, allocate nothing, whether or not pies moved index.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 25)
+public class PieSliceStoreTest {
+
+    private static final int PIES = 200;
+    private static final int MERGES = 1000;
+
+    private PieSliceStore pies = new PieSliceStore();
+    private PieSliceStore spare = new PieSliceStore();
+
+    @Test
+    public void mergeKeepsKeyIndex() {
+        pies.setAll(snapshot(1, 0));
+        merge(snapshot(2, 0));
+        assertKeysAt(0);
+        merge(snapshot(3, 7));
+        assertKeysAt(7);
+        assertEquals(PieSliceStore.NOT_FOUND, pies.indexOfKey(PIES, 0));
+    }
+
+    @Test
+    public void mergeWithSameIndicesDoesNotAllocate() {
+        assertMergesDoNotAllocate(snapshot(1, 0), snapshot(2, 0));
+    }
+
+    @Test
+    public void mergeWithMovedPiesDoesNotAllocate() {
+        assertMergesDoNotAllocate(snapshot(1, 0), snapshot(2, 3));
+    }
+
+    private void assertMergesDoNotAllocate(PieSnapshot first, PieSnapshot second) {
+        pies.setAll(first);
+        merge(second);
+        merge(first);
+        long start = ChartTestUtils.allocatedBytes();
+        for (int i = 0; i < MERGES; i++) {
+            merge(i % 2 == 0 ? second : first);
+        }
+        assertEquals("bytes allocated per merge", 0, ChartTestUtils.allocatedSince(start) / MERGES);
+    }
+
+    /**
+     * Merge as {@link PieRenderer#mergeDate} does, swapping the two stores.
+     */
+    private void merge(PieSnapshot snapshot) {
+        spare.mergeFrom(pies, snapshot);
+        PieSliceStore merged = spare;
+        spare = pies;
+        spare.clear();
+        pies = merged;
+    }
+
+    private void assertKeysAt(int rotation) {
+        for (int key = 0; key < PIES; key++) {
+            assertEquals("index of key " + key, (key + rotation) % PIES, pies.indexOfKey(key, 0));
+        }
+    }
+
+    /**
+     * @return {@link #PIES} pies keyed 0 up, the sizes of which depend on
+     * {@code seed}, rotated {@code rotation} places to the right
+     */
+    private static PieSnapshot snapshot(int seed, int rotation) {
+        PieHelper[] rotated = new PieHelper[PIES];
+        for (int i = 0; i < PIES; i++) {
+            float percent = 100f * (1 + (i * seed) % 7) / (4 * PIES);
+            rotated[(i + rotation) % PIES] = new PieHelper(percent).setKey(i);
+        }
+        ArrayList<PieHelper> list = new ArrayList<PieHelper>(PIES);
+        for (PieHelper pie : rotated) {
+            list.add(pie);
+        }
+        return PieSnapshot.build(list);
+    }
+}
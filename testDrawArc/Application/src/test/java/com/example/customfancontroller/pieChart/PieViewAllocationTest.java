@@ -0,0 +1,108 @@
+package com.example.customfancontroller.pieChart;
+
+import com.example.customfancontroller.ChartTestUtils;
+import com.example.customfancontroller.NullCanvas;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+
+/**
+ * Holds {@link PieView} frames to their allocation budget, at rest and
+ * while the pies animate, with and without level of detail.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 25)
+public class PieViewAllocationTest {
+
+    private static final int SIZE = 480;
+    private static final int FRAMES = 600;
+    private static final int PIES = 40;
+
+    // Bytes a frame may allocate.
+    private static final long BUDGET = 0;
+
+    private PieView view;
+    private NullCanvas canvas;
+
+    private final Runnable drawFrame = new Runnable() {
+        @Override
+        public void run() {
+            view.onDraw(canvas);
+        }
+    };
+
+    @Before
+    public void setUp() {
+        view = new PieView(RuntimeEnvironment.application);
+        ChartTestUtils.layOut(view, SIZE, SIZE);
+        canvas = new NullCanvas();
+
+        // The first frames lay out the labels and build the glyphs; the
+        // pies then grow in from nothing and come to rest.
+        view.setDate(pies(1));
+        ChartTestUtils.allocatedPerFrame(FRAMES, drawFrame);
+        view.updateDate(pies(2));
+        ChartTestUtils.allocatedPerFrame(FRAMES, drawFrame);
+    }
+
+    @After
+    public void tearDown() {
+        ChartTestUtils.resetFrameClock();
+    }
+
+    @Test
+    public void drawAtRestStaysWithinBudget() {
+        long start = ChartTestUtils.allocatedBytes();
+        for (int i = 0; i < FRAMES; i++) {
+            view.onDraw(canvas);
+        }
+        ChartTestUtils.assertWithinBudget("onDraw()", BUDGET, ChartTestUtils.allocatedSince(start) / FRAMES);
+    }
+
+    @Test
+    public void animationStaysWithinBudget() {
+        view.updateDate(pies(3));
+        ChartTestUtils.assertWithinBudget("animation frame", BUDGET,
+                ChartTestUtils.allocatedPerFrame(FRAMES, drawFrame));
+    }
+
+    @Test
+    public void levelOfDetailAnimationStaysWithinBudget() {
+        view.setLevelOfDetail(true);
+        view.updateDate(pies(3));
+        ChartTestUtils.assertWithinBudget("level of detail animation frame", BUDGET,
+                ChartTestUtils.allocatedPerFrame(FRAMES, drawFrame));
+    }
+
+    @Test
+    public void selectionStaysWithinBudget() {
+        view.selectedPie(PIES / 2);
+        ChartTestUtils.assertWithinBudget("selection frame", BUDGET,
+                ChartTestUtils.allocatedPerFrame(FRAMES, drawFrame));
+    }
+
+    /**
+     * @return {@link #PIES} keyed pies, the sizes of which depend on
+     * {@code seed}
+     */
+    private static ArrayList<PieHelper> pies(int seed) {
+        ArrayList<PieHelper> pies = new ArrayList<PieHelper>(PIES);
+        float total = 0;
+        float[] weights = new float[PIES];
+        for (int i = 0; i < PIES; i++) {
+            weights[i] = 1 + (i * seed) % 7;
+            total += weights[i];
+        }
+        for (int i = 0; i < PIES; i++) {
+            pies.add(new PieHelper(100 * weights[i] / total).setKey(i));
+        }
+        return pies;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.customfancontroller.chartmath;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One 16 ms frame of {@code count} values in flight, all springs or all
+ * duration curves. Every invocation retargets the values first so they
+ * never come to rest.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnimatedValuesBenchmark {
+
+    @Param({"12", "1000", "100000"})
+    int count;
+
+    private AnimatedValues springs;
+    private AnimatedValues curves;
+    private float[] targets;
+    private boolean flip;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        targets = new float[count];
+        springs = new AnimatedValues(count);
+        curves = new AnimatedValues(count);
+        springs.setSize(count);
+        curves.setSize(count);
+        for (int i = 0; i < count; i++) {
+            targets[i] = 360 * random.nextFloat();
+        }
+    }
+
+    private float nextOffset() {
+        flip = !flip;
+        return flip ? 90 : 0;
+    }
+
+    @Benchmark
+    public boolean springStep() {
+        float offset = nextOffset();
+        for (int i = 0; i < count; i++) {
+            springs.springTo(i, targets[i] + offset);
+        }
+        return springs.step(16);
+    }
+
+    @Benchmark
+    public boolean curveStep() {
+        float offset = nextOffset();
+        for (int i = 0; i < count; i++) {
+            curves.animateTo(i, targets[i] + offset, 300, AnimatedValues.CURVE_EASE_IN_OUT);
+        }
+        return curves.step(16);
+    }
+}
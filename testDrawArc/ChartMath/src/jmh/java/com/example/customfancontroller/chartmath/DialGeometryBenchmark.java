@@ -0,0 +1,72 @@
+package com.example.customfancontroller.chartmath;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dial geometry: building the position table for a dial with
+ * {@code count} positions, and placing single points as the marker
+ * animation does every frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DialGeometryBenchmark {
+
+    private static final float RADIUS = 400;
+    private static final float CENTER = 500;
+
+    @Param({"12", "360", "3600", "100000"})
+    int count;
+
+    private float[] angle;
+    private float[] x;
+    private float[] y;
+    private final float[] point = new float[2];
+    private int position;
+
+    @Setup
+    public void setUp() {
+        angle = new float[count];
+        x = new float[count];
+        y = new float[count];
+    }
+
+    @Benchmark
+    public float[] fillPositions() {
+        DialGeometry.fillPositions(count, RADIUS, CENTER, CENTER, angle, x, y);
+        return x;
+    }
+
+    @Benchmark
+    public void computeXYForPositions(Blackhole blackhole) {
+        for (int i = 0; i < count; i++) {
+            DialGeometry.computeXYForPosition(i, count, RADIUS, CENTER, CENTER, point);
+            blackhole.consume(point[0]);
+            blackhole.consume(point[1]);
+        }
+    }
+
+    @Benchmark
+    public float[] computeXYForAngle() {
+        position = (position + 1) % count;
+        DialGeometry.computeXYForAngle(DialGeometry.positionAngle(position, count) + 0.01,
+                RADIUS, CENTER, CENTER, point);
+        return point;
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.customfancontroller.chartmath;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pie chart math over {@code slices} pies of random size: layout, one
+ * animation frame as PieSliceStore runs it, separator and label trig, and
+ * hit-testing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PieMathBenchmark {
+
+    // Touch points cycled through by the hit-test benchmarks.
+    private static final int TOUCHES = 1024;
+
+    @Param({"12", "1000", "100000"})
+    int slices;
+
+    private float[] sweep;
+    private float[] start;
+    private float[] end;
+    private float[] targetStart;
+    private float[] targetEnd;
+    private AnimatedValues startMotion;
+    private AnimatedValues endMotion;
+    private boolean flip;
+    private float[] direction;
+    private final float[] label = new float[2];
+
+    private float[] touchX;
+    private float[] touchY;
+    private double[] touchDegree;
+    private int touch;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        sweep = new float[slices];
+        float total = 0;
+        for (int i = 0; i < slices; i++) {
+            sweep[i] = 1 + random.nextFloat();
+            total += sweep[i];
+        }
+        for (int i = 0; i < slices; i++) {
+            sweep[i] = sweep[i] * 360 / total;
+        }
+        start = new float[slices];
+        end = new float[slices];
+        PieMath.layOut(sweep, slices, PieMath.START_DEGREE, start, end);
+
+        // Targets of a dataset update: every pie shifted by a few degrees.
+        targetStart = new float[slices];
+        targetEnd = new float[slices];
+        for (int i = 0; i < slices; i++) {
+            targetStart[i] = start[i] + 5;
+            targetEnd[i] = end[i] + 5;
+        }
+        startMotion = new AnimatedValues(slices);
+        endMotion = new AnimatedValues(slices);
+        startMotion.setSize(slices);
+        endMotion.setSize(slices);
+        for (int i = 0; i < slices; i++) {
+            startMotion.snapTo(i, start[i]);
+            endMotion.snapTo(i, end[i]);
+        }
+        direction = new float[slices * 4];
+
+        touchX = new float[TOUCHES];
+        touchY = new float[TOUCHES];
+        touchDegree = new double[TOUCHES];
+        for (int i = 0; i < TOUCHES; i++) {
+            touchX[i] = random.nextFloat() * 800 - 400;
+            touchY[i] = random.nextFloat() * 800 - 400;
+            touchDegree[i] = PieMath.touchDegree(touchX[i], touchY[i]);
+        }
+    }
+
+    @Benchmark
+    public float layOut() {
+        return PieMath.layOut(sweep, slices, PieMath.START_DEGREE, start, end);
+    }
+
+    /**
+     * One 16 ms animation frame of every pie springing towards a dataset
+     * update: both edge springs stepped, then the separator directions of
+     * the edges recomputed, as PieSliceStore does for pies that moved.
+     * Every invocation retargets the pies so they never come to rest.
+     */
+    @Benchmark
+    public float[] step() {
+        flip = !flip;
+        final float[] toStart = flip ? targetStart : start;
+        final float[] toEnd = flip ? targetEnd : end;
+        for (int i = 0; i < slices; i++) {
+            startMotion.springTo(i, toStart[i]);
+            endMotion.springTo(i, toEnd[i]);
+        }
+        startMotion.step(16);
+        endMotion.step(16);
+        final float[] movedStart = startMotion.values();
+        final float[] movedEnd = endMotion.values();
+        for (int i = 0; i < slices; i++) {
+            PieMath.edgeDirection(movedStart[i], direction, i * 4);
+            PieMath.edgeDirection(movedEnd[i], direction, i * 4 + 2);
+        }
+        return direction;
+    }
+
+    /**
+     * The separator directions of every pie, as recomputed for each pie
+     * that moved in a frame.
+     */
+    @Benchmark
+    public float[] edgeDirections() {
+        for (int i = 0; i < slices; i++) {
+            PieMath.edgeDirection(start[i], direction, i * 4);
+            PieMath.edgeDirection(end[i], direction, i * 4 + 2);
+        }
+        return direction;
+    }
+
+    @Benchmark
+    public void labelPositions(Blackhole blackhole) {
+        for (int i = 0; i < slices; i++) {
+            PieMath.labelPosition(start[i], end[i], 500, 400, label);
+            blackhole.consume(label[0]);
+            blackhole.consume(label[1]);
+        }
+    }
+
+    @Benchmark
+    public double touchDegree() {
+        touch = (touch + 1) % TOUCHES;
+        return PieMath.touchDegree(touchX[touch], touchY[touch]);
+    }
+
+    @Benchmark
+    public int indexAtSorted() {
+        touch = (touch + 1) % TOUCHES;
+        return PieMath.indexAt(start, end, slices, true, touchDegree[touch]);
+    }
+
+    @Benchmark
+    public int indexAtLinear() {
+        touch = (touch + 1) % TOUCHES;
+        return PieMath.indexAt(start, end, slices, false, touchDegree[touch]);
+    }
+}
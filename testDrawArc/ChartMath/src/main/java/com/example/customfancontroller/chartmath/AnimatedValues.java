@@ -0,0 +1,296 @@
+package com.example.customfancontroller.chartmath;
+
+import java.util.Arrays;
+
+/**
+ * A set of animated float values kept in parallel primitive arrays and
+ * stepped together, against real elapsed time, in one loop. Every value
+ * either rests, follows a critically damped spring towards its target, or
+ * runs a fixed-duration curve from where it was to its target. Values can
+ * be retargeted at any time; springs keep their velocity when they are.
+ *
+ * Not thread safe.
+ */
+public final class AnimatedValues {
+
+    public static final int CURVE_LINEAR = 0;
+    public static final int CURVE_EASE_IN_OUT = 1;
+    public static final int CURVE_EASE_OUT = 2;
+
+    // Natural frequency of the default spring, in radians per second. A
+    // critically damped spring covers 99% of the way in about 6.6 / omega
+    // seconds.
+    public static final float DEFAULT_STIFFNESS = 12f;
+
+    private static final byte MODE_REST = 0;
+    private static final byte MODE_SPRING = 1;
+    private static final byte MODE_DURATION = 2;
+
+    private int size;
+    private float[] value;
+    private float[] target;
+    private float[] velocity;                // Units per second, springs only.
+    private float[] stiffness;               // Springs only.
+    private float[] from;                    // Durations only.
+    private float[] elapsed;                 // Milliseconds, durations only.
+    private float[] duration;                // Milliseconds, durations only.
+    private byte[] mode;
+    private byte[] curve;
+
+    // Springs snap onto their target once both the distance and the
+    // velocity (per unit of stiffness) are below this.
+    private float restThreshold = 0.01f;
+
+    public AnimatedValues(int capacity) {
+        allocate(Math.max(0, capacity));
+    }
+
+    private void allocate(int capacity) {
+        value = new float[capacity];
+        target = new float[capacity];
+        velocity = new float[capacity];
+        stiffness = new float[capacity];
+        from = new float[capacity];
+        elapsed = new float[capacity];
+        duration = new float[capacity];
+        mode = new byte[capacity];
+        curve = new byte[capacity];
+    }
+
+    /**
+     * Set how close, in value units, a spring has to come to its target
+     * before it snaps onto it and rests.
+     */
+    public void setRestThreshold(float threshold) {
+        restThreshold = threshold;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Grow the arrays to hold at least {@code capacity} values, keeping the
+     * current ones. The arrays returned by {@link #values()} and
+     * {@link #targets()} are replaced when this grows them.
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity <= value.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, value.length * 2);
+        value = Arrays.copyOf(value, newCapacity);
+        target = Arrays.copyOf(target, newCapacity);
+        velocity = Arrays.copyOf(velocity, newCapacity);
+        stiffness = Arrays.copyOf(stiffness, newCapacity);
+        from = Arrays.copyOf(from, newCapacity);
+        elapsed = Arrays.copyOf(elapsed, newCapacity);
+        duration = Arrays.copyOf(duration, newCapacity);
+        mode = Arrays.copyOf(mode, newCapacity);
+        curve = Arrays.copyOf(curve, newCapacity);
+    }
+
+    /**
+     * Set the number of values. Values beyond the old size start at rest
+     * at 0.
+     */
+    public void setSize(int newSize) {
+        ensureCapacity(newSize);
+        for (int i = size; i < newSize; i++) {
+            snapTo(i, 0);
+        }
+        size = newSize;
+    }
+
+    /**
+     * @return the live array of current values; read only, and only valid
+     * up to {@link #size()} and until the capacity grows
+     */
+    public float[] values() {
+        return value;
+    }
+
+    /**
+     * @return the live array of targets; read only, like {@link #values()}
+     */
+    public float[] targets() {
+        return target;
+    }
+
+    public float get(int index) {
+        return value[index];
+    }
+
+    public float getTarget(int index) {
+        return target[index];
+    }
+
+    public boolean isAtRest(int index) {
+        return mode[index] == MODE_REST;
+    }
+
+    public boolean isAtRest() {
+        for (int i = 0; i < size; i++) {
+            if (mode[i] != MODE_REST) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Move a value straight to {@code newValue} and rest there.
+     */
+    public void snapTo(int index, float newValue) {
+        value[index] = newValue;
+        target[index] = newValue;
+        velocity[index] = 0;
+        mode[index] = MODE_REST;
+    }
+
+    public void springTo(int index, float newTarget) {
+        springTo(index, newTarget, DEFAULT_STIFFNESS);
+    }
+
+    /**
+     * Let a value follow a critically damped spring to {@code newTarget},
+     * starting with the velocity it has now.
+     *
+     * @param omega natural frequency of the spring, in radians per second
+     */
+    public void springTo(int index, float newTarget, float omega) {
+        target[index] = newTarget;
+        stiffness[index] = omega;
+        if (value[index] == newTarget && velocity[index] == 0) {
+            mode[index] = MODE_REST;
+        } else {
+            mode[index] = MODE_SPRING;
+        }
+    }
+
+    /**
+     * Move a value from where it is now to {@code newTarget} along
+     * {@code curveType} in {@code durationMillis}.
+     */
+    public void animateTo(int index, float newTarget, float durationMillis, int curveType) {
+        target[index] = newTarget;
+        from[index] = value[index];
+        elapsed[index] = 0;
+        duration[index] = Math.max(1, durationMillis);
+        curve[index] = (byte) curveType;
+        velocity[index] = 0;
+        mode[index] = value[index] == newTarget ? MODE_REST : MODE_DURATION;
+    }
+
+    /**
+     * Change the target of a value without changing how it moves: a spring
+     * keeps its stiffness and velocity, a duration curve starts over from
+     * the current value with its duration, and a resting value springs
+     * with the default stiffness.
+     */
+    public void retarget(int index, float newTarget) {
+        switch (mode[index]) {
+            case MODE_DURATION:
+                animateTo(index, newTarget, duration[index], curve[index]);
+                break;
+            case MODE_SPRING:
+                springTo(index, newTarget, stiffness[index]);
+                break;
+            default:
+                springTo(index, newTarget);
+                break;
+        }
+    }
+
+    /**
+     * Copy the complete animation state of one value of {@code source}.
+     */
+    public void copy(int index, AnimatedValues source, int sourceIndex) {
+        value[index] = source.value[sourceIndex];
+        target[index] = source.target[sourceIndex];
+        velocity[index] = source.velocity[sourceIndex];
+        stiffness[index] = source.stiffness[sourceIndex];
+        from[index] = source.from[sourceIndex];
+        elapsed[index] = source.elapsed[sourceIndex];
+        duration[index] = source.duration[sourceIndex];
+        mode[index] = source.mode[sourceIndex];
+        curve[index] = source.curve[sourceIndex];
+    }
+
+    /**
+     * Advance every value by the given amount of real time.
+     *
+     * @return true if any value is still moving
+     */
+    public boolean step(float elapsedMillis) {
+        final float dt = elapsedMillis / 1000f;
+        final float threshold = restThreshold;
+        final float[] value = this.value;
+        final float[] target = this.target;
+        final byte[] mode = this.mode;
+        boolean moving = false;
+
+        // Springs mostly share one stiffness, so the decay is cached.
+        float lastOmega = Float.NaN;
+        float decay = 1;
+
+        for (int i = 0; i < size; i++) {
+            switch (mode[i]) {
+                case MODE_SPRING: {
+                    final float omega = stiffness[i];
+                    if (omega != lastOmega) {
+                        lastOmega = omega;
+                        decay = (float) Math.exp(-omega * dt);
+                    }
+                    // Exact solution of x'' = -2 omega x' - omega^2 x over dt.
+                    float x = value[i] - target[i];
+                    float v = velocity[i];
+                    float c = v + omega * x;
+                    float newX = (x + c * dt) * decay;
+                    float newV = (v - omega * c * dt) * decay;
+                    if (Math.abs(newX) < threshold && Math.abs(newV) < threshold * omega) {
+                        value[i] = target[i];
+                        velocity[i] = 0;
+                        mode[i] = MODE_REST;
+                    } else {
+                        value[i] = target[i] + newX;
+                        velocity[i] = newV;
+                        moving = true;
+                    }
+                    break;
+                }
+                case MODE_DURATION: {
+                    float time = elapsed[i] + elapsedMillis;
+                    if (time >= duration[i]) {
+                        value[i] = target[i];
+                        mode[i] = MODE_REST;
+                    } else {
+                        elapsed[i] = time;
+                        value[i] = from[i] + (target[i] - from[i]) * interpolate(curve[i], time / duration[i]);
+                        moving = true;
+                    }
+                    break;
+                }
+                default:
+                    break;
+            }
+        }
+        return moving;
+    }
+
+    /**
+     * @param t fraction of the duration, 0 to 1
+     * @return the fraction of the distance covered at {@code t}
+     */
+    public static float interpolate(int curveType, float t) {
+        switch (curveType) {
+            case CURVE_EASE_IN_OUT:
+                // Same curve as AccelerateDecelerateInterpolator.
+                return (float) (Math.cos((t + 1) * Math.PI) / 2 + 0.5);
+            case CURVE_EASE_OUT:
+                return 1 - (1 - t) * (1 - t);
+            default:
+                return t;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.customfancontroller.chartmath;
+
+/**
+ * Bounding boxes of arcs and wedges, in the angle convention of
+ * Canvas.drawArc(): degrees clockwise from 3 o'clock with y pointing down.
+ * Used to invalidate only the part of a chart that changed.
+ */
+public final class ArcBounds {
+
+    public static final int LEFT = 0;
+    public static final int TOP = 1;
+    public static final int RIGHT = 2;
+    public static final int BOTTOM = 3;
+
+    private ArcBounds() {
+    }
+
+    /**
+     * Compute the bounding box of the arc of a circle from
+     * {@code startDegree} over {@code sweepDegree}, which may be negative.
+     * With {@code useCenter} the box also covers the centre, as a wedge
+     * does.
+     *
+     * @param out 4-element array receiving left, top, right and bottom
+     */
+    public static void compute(float centerX, float centerY, float radius,
+                               float startDegree, float sweepDegree, boolean useCenter, float[] out) {
+        if (sweepDegree < 0) {
+            startDegree += sweepDegree;
+            sweepDegree = -sweepDegree;
+        }
+        if (sweepDegree >= 360) {
+            out[LEFT] = centerX - radius;
+            out[TOP] = centerY - radius;
+            out[RIGHT] = centerX + radius;
+            out[BOTTOM] = centerY + radius;
+            return;
+        }
+        final float endDegree = startDegree + sweepDegree;
+        double start = Math.toRadians(startDegree);
+        double end = Math.toRadians(endDegree);
+        float x0 = centerX + (float) (radius * Math.cos(start));
+        float y0 = centerY + (float) (radius * Math.sin(start));
+        float x1 = centerX + (float) (radius * Math.cos(end));
+        float y1 = centerY + (float) (radius * Math.sin(end));
+        float left = Math.min(x0, x1);
+        float top = Math.min(y0, y1);
+        float right = Math.max(x0, x1);
+        float bottom = Math.max(y0, y1);
+
+        // The circle reaches its extremes at the multiples of 90 degrees;
+        // any the arc passes through widen the box.
+        for (int quarter = (int) Math.ceil(startDegree / 90); quarter * 90f <= endDegree; quarter++) {
+            switch (((quarter % 4) + 4) % 4) {
+                case 0:
+                    right = centerX + radius;
+                    break;
+                case 1:
+                    bottom = centerY + radius;
+                    break;
+                case 2:
+                    left = centerX - radius;
+                    break;
+                default:
+                    top = centerY - radius;
+                    break;
+            }
+        }
+        if (useCenter) {
+            left = Math.min(left, centerX);
+            top = Math.min(top, centerY);
+            right = Math.max(right, centerX);
+            bottom = Math.max(bottom, centerY);
+        }
+        out[LEFT] = left;
+        out[TOP] = top;
+        out[RIGHT] = right;
+        out[BOTTOM] = bottom;
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.customfancontroller.chartmath;
+
+/**
+ * Geometry of a multi-position dial: where each position sits on a ring
+ * and where a point at a given angle lands. Positions are spaced evenly,
+ * with position 0 at 12 o'clock and counting clockwise, as drawn by the
+ * dial views. Plain Java, so it can be benchmarked and tested on a desktop
+ * JVM.
+ */
+public final class DialGeometry {
+
+    /**
+     * Angle of position 0, in radians clockwise from 3 o'clock.
+     */
+    public static final double START_ANGLE = 1.5 * Math.PI;
+
+    private DialGeometry() {
+    }
+
+    /**
+     * @return the angle between two neighbouring positions, in radians
+     */
+    public static double sectionAngle(int count) {
+        return 2 * (Math.PI / count);
+    }
+
+    /**
+     * @return the angle of the given position, in radians
+     */
+    public static double positionAngle(int pos, int count) {
+        return START_ANGLE + pos * sectionAngle(count);
+    }
+
+    /**
+     * Compute the X/Y-coordinates of the point at the given angle and
+     * radius around a centre.
+     *
+     * @param out 2-element array receiving the X- and Y-coordinate
+     */
+    public static void computeXYForAngle(double angle, float radius, float centerX, float centerY, float[] out) {
+        out[0] = (float) (radius * Math.cos(angle)) + centerX;
+        out[1] = (float) (radius * Math.sin(angle)) + centerY;
+    }
+
+    /**
+     * Compute the X/Y-coordinates of a position on a ring.
+     *
+     * @param out 2-element array receiving the X- and Y-coordinate
+     */
+    public static void computeXYForPosition(int pos, int count, float radius, float centerX, float centerY, float[] out) {
+        computeXYForAngle(positionAngle(pos, count), radius, centerX, centerY, out);
+    }
+
+    /**
+     * Fill the angle and the x/y centre on a ring of every position, as
+     * used for the geometry table of a dial.
+     *
+     * @param angle receives the angle of every position, in radians; may be
+     *              null
+     */
+    public static void fillPositions(int count, float radius, float centerX, float centerY,
+                                     float[] angle, float[] x, float[] y) {
+        final double section = sectionAngle(count);
+        for (int i = 0; i < count; i++) {
+            double a = START_ANGLE + i * section;
+            if (angle != null) {
+                angle[i] = (float) a;
+            }
+            x[i] = (float) (radius * Math.cos(a)) + centerX;
+            y[i] = (float) (radius * Math.sin(a)) + centerY;
+        }
+    }
+
+    /**
+     * Pick how many positions apart the drawn ticks or labels of a dial
+     * must be so that neighbours on a ring of the given radius are at least
+     * {@code minSpacing} pixels apart. The stride is 1, 2 or 5 times a power
+     * of ten, so the drawn positions stay round numbers.
+     *
+     * @return the stride, at most {@code count}
+     */
+    public static int thinningStride(int count, float radius, float minSpacing) {
+        final double spacing = radius * sectionAngle(count);
+        if (!(spacing > 0)) {
+            return count;
+        }
+        for (int decade = 1; decade < count; decade *= 10) {
+            if (decade * spacing >= minSpacing) {
+                return decade;
+            }
+            if (2 * decade * spacing >= minSpacing) {
+                return Math.min(2 * decade, count);
+            }
+            if (5 * decade * spacing >= minSpacing) {
+                return Math.min(5 * decade, count);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return whether the given position is drawn at the given stride: it
+     * is a multiple of the stride and not crowding position 0 where the
+     * ring closes
+     */
+    public static boolean isOnStride(int pos, int stride, int count) {
+        return pos % stride == 0 && (pos == 0 || count - pos >= stride);
+    }
+
+    /**
+     * Fill a drawLines() buffer with the radial tick marks of every
+     * {@code stride}-th position, running inwards from {@code outerRadius}.
+     * Ticks on a multiple of {@code majorStride} reach down to
+     * {@code majorInnerRadius}, the others to {@code innerRadius}.
+     *
+     * @param lines receives four floats per tick; needs
+     *              {@code 4 * (count / stride + 1)} elements
+     * @return the number of floats written
+     */
+    public static int fillTicks(int count, int stride, int majorStride,
+                                float innerRadius, float majorInnerRadius, float outerRadius,
+                                float centerX, float centerY, float[] lines) {
+        final double section = sectionAngle(count);
+        int n = 0;
+        for (int i = 0; i < count; i += stride) {
+            if (!isOnStride(i, stride, count)) {
+                continue;
+            }
+            double a = START_ANGLE + i * section;
+            float cos = (float) Math.cos(a);
+            float sin = (float) Math.sin(a);
+            float inner = isOnStride(i, majorStride, count) ? majorInnerRadius : innerRadius;
+            lines[n++] = outerRadius * cos + centerX;
+            lines[n++] = outerRadius * sin + centerY;
+            lines[n++] = inner * cos + centerX;
+            lines[n++] = inner * sin + centerY;
+        }
+        return n;
+    }
+}
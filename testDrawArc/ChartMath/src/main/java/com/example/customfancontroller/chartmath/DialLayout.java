@@ -0,0 +1,111 @@
+package com.example.customfancontroller.chartmath;
+
+/**
+ * Sizes and colors of a dial, shared by the Android dial views and the
+ * headless renderer so both draw the same picture. Colors are ARGB ints.
+ */
+public final class DialLayout {
+
+    public static final int DIAL_COLOR_OFF = 0xFF888888;      // Selection 0.
+    public static final int DIAL_COLOR_ON = 0xFF00FF00;       // Any other.
+    public static final int TEXT_COLOR = 0xFF000000;
+    public static final int MARKER_COLOR = 0xFFFF0000;
+    public static final int GUIDE_COLOR = 0xFF0000FF;
+    public static final int LABEL_ARC_COLOR = 0xFF888888;
+    public static final int MARKER_ARC_COLOR = 0xFF0000FF;
+
+    public static final float TEXT_SIZE = 40f;
+    public static final float TEXT_BASELINE_OFFSET = 12;      // Label centre to baseline.
+    public static final float ARC_STROKE_WIDTH = 15;
+    public static final float GUIDE_STROKE_WIDTH = 1;
+    public static final float DOT_RADIUS = 20;                // Marker and label guide dots.
+    public static final float TICK_STROKE_WIDTH = 2;
+    public static final float TICK_LENGTH = 10;               // Inwards from the dial edge.
+    public static final float MAJOR_TICK_LENGTH = 20;         // Ticks of labelled positions.
+    public static final float MIN_TICK_SPACING = 4;           // Closer ticks are thinned.
+    public static final float LABEL_GAP = 8;                  // Least room between labels.
+    public static final float START_DEGREES = 270;            // Position 0, as arcs measure it.
+
+    private DialLayout() {
+    }
+
+    /**
+     * @return the radius of the dial circle in a drawing area of the given
+     * size
+     */
+    public static float radius(float width, float height) {
+        return (float) (Math.min(width, height) / 2 * 0.8);
+    }
+
+    /**
+     * @return the radius of the ring the position labels sit on
+     */
+    public static float labelRadius(float radius) {
+        return radius + 20;
+    }
+
+    /**
+     * @return the radius of the ring the marker travels on
+     */
+    public static float markerRadius(float radius) {
+        return radius - 35;
+    }
+
+    /**
+     * @return the color of the dial circle while the given position is
+     * selected
+     */
+    public static int dialColor(int selection) {
+        return selection >= 1 ? DIAL_COLOR_ON : DIAL_COLOR_OFF;
+    }
+
+    /**
+     * @return the angle, in degrees as the arcs use it, between two
+     * positions
+     */
+    public static float sectionDegrees(int count) {
+        return 360f / count;
+    }
+
+    /**
+     * @return how many positions apart the tick marks of a dial with the
+     * given radius are drawn
+     */
+    public static int tickStride(int count, float radius) {
+        return DialGeometry.thinningStride(count, radius, MIN_TICK_SPACING);
+    }
+
+    /**
+     * @return how many positions apart the labels, with their guide
+     * circles, of a dial with the given radius are drawn so that they do
+     * not overlap. Ticks are only drawn when this is more than 1.
+     *
+     * @param maxLabelWidth width of the widest label
+     */
+    public static int labelStride(int count, float radius, float maxLabelWidth) {
+        float spacing = Math.max(2 * DOT_RADIUS, maxLabelWidth) + LABEL_GAP;
+        int stride = DialGeometry.thinningStride(count, labelRadius(radius), spacing);
+        // Labelled positions get the long ticks, so their stride is kept a
+        // multiple of the tick stride.
+        if (stride > 1 && stride % tickStride(count, radius) != 0) {
+            stride = Math.min(count, 2 * stride);
+        }
+        return stride;
+    }
+
+    /**
+     * Fill a drawLines() buffer with the tick marks of a dial with the
+     * given radius: every {@code tickStride}-th position gets a tick, and
+     * the labelled ones a long one.
+     *
+     * @param lines receives four floats per tick; needs
+     *              {@code 4 * (count / tickStride + 1)} elements
+     * @return the number of floats written
+     */
+    public static int fillTicks(int count, int tickStride, int labelStride, float radius,
+                                float centerX, float centerY, float[] lines) {
+        return DialGeometry.fillTicks(count, tickStride, labelStride,
+                radius - TICK_LENGTH, radius - MAJOR_TICK_LENGTH, radius,
+                centerX, centerY, lines);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.customfancontroller.chartmath;
+
+/**
+ * Sizes and colors of a pie chart, shared by the Android pie views and the
+ * headless renderer so both draw the same picture. Colors are ARGB ints.
+ */
+public final class PieLayout {
+
+    // Colors of pies without one of their own, by index.
+    private static final int[] DEFAULT_COLOR_LIST = {0xFF33B5E5,
+            0xFFAA66CC,
+            0xFF99CC00,
+            0xFFFFBB33,
+            0xFFFF4444};
+
+    public static final int SEPARATOR_COLOR = 0xFFFFFFFF;
+    public static final float SEPARATOR_WIDTH = 2f;
+    public static final int TEXT_COLOR = 0xFFFFFFFF;
+    public static final float TEXT_SIZE_SP = 13;
+    public static final int SELECTED_INSET = 2;               // Minor margin for the bigger circle.
+
+    private PieLayout() {
+    }
+
+    public static int margin(int width){
+        return width/16;
+    }
+
+    public static int radius(int width){
+        return width/2-margin(width);
+    }
+
+    /**
+     * @return the x and y of the pie centre
+     */
+    public static int center(int width){
+        return radius(width)+margin(width);
+    }
+
+    /**
+     * @return the color for the pie at {@code index}: its own, or if it has
+     * none (0), the default one for the index
+     */
+    public static int color(int index, int color){
+        return color != 0 ? color : DEFAULT_COLOR_LIST[index%DEFAULT_COLOR_LIST.length];
+    }
+
+    /**
+     * @return the integer percentage shown on a pie of the given sweep
+     */
+    public static int percent(float sweepDegree){
+        return (int)(sweepDegree / 360 * 100);
+    }
+}
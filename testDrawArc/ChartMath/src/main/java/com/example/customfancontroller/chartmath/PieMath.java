@@ -0,0 +1,119 @@
+package com.example.customfancontroller.chartmath;
+
+/**
+ * Layout, hit-testing and label math of a pie chart whose slices are
+ * stored in parallel arrays of degrees. Slices are laid out clockwise
+ * from 270 degrees, so every degree is kept within the [270, 630) turn.
+ * Plain Java, so it can be benchmarked and tested on a desktop JVM.
+ */
+public final class PieMath {
+
+    public static final float START_DEGREE = 270;
+    public static final int NOT_FOUND = -1;
+
+    private PieMath() {
+    }
+
+    /**
+     * Lay slices out back to back from {@code startDegree}. {@code sweep}
+     * may be the same array as {@code end}.
+     *
+     * @return the end degree of the last slice
+     */
+    public static float layOut(float[] sweep, int size, float startDegree, float[] start, float[] end){
+        float totalAngel = startDegree;
+        for(int i = 0; i < size; i++){
+            start[i] = totalAngel;
+            totalAngel += sweep[i];
+            end[i] = totalAngel;
+        }
+        return totalAngel;
+    }
+
+    /**
+     * @return the degree, in the [270, 630) turn, of the point at the given
+     * offset from the centre of the pie
+     */
+    public static double touchDegree(float dx, float dy){
+        double degree = Math.atan2(dx, dy)* 180 / Math.PI;
+        degree = -(degree-180) + 270;
+        return ((degree - START_DEGREE) % 360 + 360) % 360 + START_DEGREE;
+    }
+
+    /**
+     * Find the slice covering the given degree.
+     *
+     * @param sorted whether the end degrees are ascending and no slice is
+     *               reversed; if not, every slice is scanned
+     * @return the slice index, or {@link #NOT_FOUND}
+     */
+    public static int indexAt(float[] start, float[] end, int size, boolean sorted, double degree){
+        if(!sorted){
+            for(int index = 0; index < size; index++){
+                if(degree>=start[index] && degree<=end[index]){
+                    return index;
+                }
+            }
+            return NOT_FOUND;
+        }
+
+        // First slice whose end degree is at or past the degree.
+        int low = 0;
+        int high = size;
+        while(low < high){
+            int mid = (low + high) >>> 1;
+            if(end[mid] < degree){
+                low = mid + 1;
+            }else {
+                high = mid;
+            }
+        }
+        if(low < size && degree >= start[low]){
+            return low;
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * @return whether the end degrees are ascending and no slice is
+     * reversed, so {@link #indexAt} can binary search
+     */
+    public static boolean isSorted(float[] start, float[] end, int size){
+        float lastEnd = -Float.MAX_VALUE;
+        for(int i = 0; i < size; i++){
+            if(end[i] < lastEnd || start[i] > end[i]){
+                return false;
+            }
+            lastEnd = end[i];
+        }
+        return true;
+    }
+
+    /**
+     * Compute the cosine and sine of a slice edge at the given degree, the
+     * direction of the separator line drawn along it.
+     *
+     * @param out receives the cosine at {@code offset} and the sine after it
+     */
+    public static void edgeDirection(float degree, float[] out, int offset){
+        double radians = Math.toRadians(degree);
+        out[offset] = (float)Math.cos(radians);
+        out[offset + 1] = (float)Math.sin(radians);
+    }
+
+    /**
+     * Compute where the label of a slice spanning the given degrees is
+     * centred: halfway out along its bisector.
+     *
+     * @param out 2-element array receiving the X- and Y-coordinate
+     */
+    public static void labelPosition(float startDegree, float endDegree, float center, float radius, float[] out){
+        float angel = (startDegree + endDegree) /2;
+        int sth = 1;
+        if(angel%360 > 180 && angel%360 < 360){
+            sth = -1;
+        }
+        out[0] = (float)(center + Math.cos(Math.toRadians(-angel)) * radius/2);
+        out[1] = (float)(center + sth * Math.abs(Math.sin(Math.toRadians(-angel))) * radius/2);
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.customfancontroller.render;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Renders charts to PNG files in parallel on a fork-join pool. Every worker
+ * paints into its own pooled image buffer and encodes with its own
+ * {@link PngEncoder}, so rendering a batch allocates little beyond the
+ * encoded files.
+ */
+public final class BatchRenderer {
+
+    // Charts rendered by one task without splitting it further.
+    private static final int BATCH_SIZE = 4;
+
+    private final ForkJoinPool pool;
+    private final ImagePool images = new ImagePool();
+    private final ThreadLocal<PngEncoder> encoders = new ThreadLocal<PngEncoder>() {
+        @Override
+        protected PngEncoder initialValue() {
+            return new PngEncoder();
+        }
+    };
+
+    /**
+     * Create a renderer using every available core.
+     */
+    public BatchRenderer() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public BatchRenderer(int parallelism) {
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Render {@code charts.get(i)} to {@code outputs.get(i)} as a PNG, for
+     * every i, and wait until all are written.
+     *
+     * @throws IOException the first error writing any of the files
+     */
+    public void render(List<? extends Chart> charts, List<File> outputs) throws IOException {
+        if (charts.size() != outputs.size()) {
+            throw new IllegalArgumentException("charts.size() != outputs.size()");
+        }
+        try {
+            pool.invoke(new RenderTask(charts, outputs, 0, charts.size()));
+        } catch (RenderException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Paint one chart into a new image, which the caller owns.
+     */
+    public static BufferedImage paint(Chart chart) {
+        BufferedImage image = new BufferedImage(chart.getWidth(), chart.getHeight(),
+                BufferedImage.TYPE_INT_ARGB);
+        paint(chart, image);
+        return image;
+    }
+
+    private static void paint(Chart chart, BufferedImage image) {
+        Graphics2D g = image.createGraphics();
+        try {
+            chart.paint(g);
+        } finally {
+            g.dispose();
+        }
+    }
+
+    private void write(BufferedImage image, File output) throws IOException {
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(output), 64 * 1024);
+        try {
+            encoders.get().encode(image, out);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Stop the worker threads once the running batches are done.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private final class RenderTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<? extends Chart> charts;
+        private final List<File> outputs;
+        private final int from;
+        private final int to;
+
+        RenderTask(List<? extends Chart> charts, List<File> outputs, int from, int to) {
+            this.charts = charts;
+            this.outputs = outputs;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > BATCH_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RenderTask(charts, outputs, from, middle),
+                        new RenderTask(charts, outputs, middle, to));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                Chart chart = charts.get(i);
+                BufferedImage image = images.acquire(chart.getWidth(), chart.getHeight());
+                paint(chart, image);
+                try {
+                    write(image, outputs.get(i));
+                } catch (IOException e) {
+                    throw new RenderException(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Carries an IOException out of a fork-join task.
+     */
+    private static final class RenderException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        RenderException(IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+}
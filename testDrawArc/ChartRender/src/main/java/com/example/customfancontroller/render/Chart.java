@@ -0,0 +1,20 @@
+package com.example.customfancontroller.render;
+
+import java.awt.Graphics2D;
+
+/**
+ * A chart that can be painted headlessly with Java2D. Implementations are
+ * immutable, so one chart can be painted from any thread.
+ */
+public interface Chart {
+
+    int getWidth();
+
+    int getHeight();
+
+    /**
+     * Paint the chart onto a cleared, transparent area of
+     * {@link #getWidth()} by {@link #getHeight()} pixels.
+     */
+    void paint(Graphics2D g);
+}
@@ -0,0 +1,141 @@
+package com.example.customfancontroller.render;
+
+import com.example.customfancontroller.chartmath.DialGeometry;
+import com.example.customfancontroller.chartmath.DialLayout;
+
+import java.awt.BasicStroke;
+import java.awt.Graphics2D;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Rectangle2D;
+
+/**
+ * A dial as DialView shows it once the marker has come to rest on
+ * {@code selection}: the dial, its numbered positions and guide circles,
+ * the marker, and, for any position but 0, the arcs of the last step.
+ * Labels that would overlap are thinned out and tick marks drawn instead,
+ * as DialView does.
+ */
+public final class DialChart implements Chart {
+
+    private final int width;
+    private final int height;
+    private final int count;
+    private final int selection;
+
+    /**
+     * @param count     number of positions
+     * @param selection selected position, 0 to count - 1
+     */
+    public DialChart(int width, int height, int count, int selection) {
+        if (count <= 0 || selection < 0 || selection >= count) {
+            throw new IllegalArgumentException("selection " + selection + " of " + count);
+        }
+        this.width = width;
+        this.height = height;
+        this.count = count;
+        this.selection = selection;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public void paint(Graphics2D g) {
+        Painting.setUp(g);
+        final float centerX = width / 2f;
+        final float centerY = height / 2f;
+        final float radius = DialLayout.radius(width, height);
+        final float labelRadius = DialLayout.labelRadius(radius);
+        final float markerRadius = DialLayout.markerRadius(radius);
+
+        g.setFont(Painting.font(DialLayout.TEXT_SIZE));
+        float maxLabelWidth = g.getFontMetrics().stringWidth(Integer.toString(count - 1));
+        int labelStride = DialLayout.labelStride(count, radius, maxLabelWidth);
+
+        // Draw the dial.
+        g.setColor(Painting.color(DialLayout.dialColor(selection)));
+        g.fill(circle(centerX, centerY, radius));
+        if (labelStride > 1) {
+            int tickStride = DialLayout.tickStride(count, radius);
+            float[] ticks = new float[4 * (count / tickStride + 1)];
+            int tickCount = DialLayout.fillTicks(count, tickStride, labelStride,
+                    radius, centerX, centerY, ticks);
+            g.setStroke(new BasicStroke(DialLayout.TICK_STROKE_WIDTH,
+                    BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER));
+            g.setColor(Painting.color(DialLayout.TEXT_COLOR));
+            for (int i = 0; i < tickCount; i += 4) {
+                g.draw(new Line2D.Float(ticks[i], ticks[i + 1], ticks[i + 2], ticks[i + 3]));
+            }
+        }
+
+        // Draw the text labels and their guide circles.
+        BasicStroke guideStroke = new BasicStroke(DialLayout.GUIDE_STROKE_WIDTH,
+                BasicStroke.CAP_ROUND, BasicStroke.JOIN_MITER);
+        g.setStroke(guideStroke);
+        g.setColor(Painting.color(DialLayout.GUIDE_COLOR));
+        g.draw(circle(centerX, centerY, labelRadius));
+
+        float[] labelX = new float[count];
+        float[] labelY = new float[count];
+        DialGeometry.fillPositions(count, labelRadius, centerX, centerY, null, labelX, labelY);
+        for (int i = 0; i < count; i += labelStride) {
+            if (!DialGeometry.isOnStride(i, labelStride, count)) {
+                continue;
+            }
+            g.setColor(Painting.color(DialLayout.TEXT_COLOR));
+            Painting.drawCenteredText(g, Integer.toString(i),
+                    labelX[i], labelY[i] + DialLayout.TEXT_BASELINE_OFFSET);
+            g.setColor(Painting.color(DialLayout.GUIDE_COLOR));
+            g.draw(circle(labelX[i], labelY[i], DialLayout.DOT_RADIUS));
+        }
+
+        // Draw the ring the indicator travels on.
+        g.draw(circle(centerX, centerY, markerRadius));
+
+        // Draw the bounding boxes.
+        g.setColor(Painting.color(DialLayout.TEXT_COLOR));
+        g.setStroke(new BasicStroke(1));
+        g.draw(square(centerX, centerY, markerRadius));
+        g.draw(square(centerX, centerY, labelRadius));
+        g.draw(new Line2D.Float(0, 0, width, 0));
+        g.draw(new Line2D.Float(width, 0, width, width));
+        g.draw(new Line2D.Float(width, width, 0, width));
+        g.draw(new Line2D.Float(0, width, 0, 0));
+
+        // Draw the indicator mark.
+        float[] marker = new float[2];
+        DialGeometry.computeXYForPosition(selection, count, markerRadius, centerX, centerY, marker);
+        g.setColor(Painting.color(DialLayout.MARKER_COLOR));
+        g.fill(circle(marker[0], marker[1], DialLayout.DOT_RADIUS));
+
+        // Draw the arcs swept by the step onto the selection.
+        if (selection != 0) {
+            float section = DialLayout.sectionDegrees(count);
+            float start = DialLayout.START_DEGREES + (selection - 1) * section;
+            g.setStroke(new BasicStroke(DialLayout.ARC_STROKE_WIDTH,
+                    BasicStroke.CAP_ROUND, BasicStroke.JOIN_MITER));
+            g.setColor(Painting.color(DialLayout.LABEL_ARC_COLOR));
+            g.draw(Painting.arc(centerX - labelRadius, centerY - labelRadius,
+                    centerX + labelRadius, centerY + labelRadius, start, section, false));
+            g.setColor(Painting.color(DialLayout.MARKER_ARC_COLOR));
+            g.draw(Painting.arc(centerX - markerRadius, centerY - markerRadius,
+                    centerX + markerRadius, centerY + markerRadius, start, section, false));
+        }
+    }
+
+    private static Ellipse2D circle(float x, float y, float radius) {
+        return new Ellipse2D.Float(x - radius, y - radius, radius * 2, radius * 2);
+    }
+
+    private static Rectangle2D square(float x, float y, float halfSize) {
+        return new Rectangle2D.Float(x - halfSize, y - halfSize, halfSize * 2, halfSize * 2);
+    }
+}
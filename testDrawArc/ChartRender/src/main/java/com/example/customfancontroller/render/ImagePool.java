@@ -0,0 +1,31 @@
+package com.example.customfancontroller.render;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+/**
+ * Keeps one image buffer per rendering thread and hands it out again,
+ * cleared, for every chart of the same size, so a batch allocates one
+ * image per worker instead of one per chart.
+ */
+final class ImagePool {
+
+    private final ThreadLocal<BufferedImage> images = new ThreadLocal<BufferedImage>();
+
+    /**
+     * @return a transparent image of the given size, owned by the calling
+     * thread until its next call
+     */
+    BufferedImage acquire(int width, int height) {
+        BufferedImage image = images.get();
+        if (image == null || image.getWidth() != width || image.getHeight() != height) {
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            images.set(image);
+        } else {
+            int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            Arrays.fill(pixels, 0);
+        }
+        return image;
+    }
+}
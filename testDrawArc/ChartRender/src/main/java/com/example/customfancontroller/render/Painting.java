@@ -0,0 +1,51 @@
+package com.example.customfancontroller.render;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Arc2D;
+
+/**
+ * Java2D equivalents of the Android canvas calls the charts are drawn with.
+ */
+final class Painting {
+
+    private static final Font BASE_FONT = new Font(Font.SANS_SERIF, Font.PLAIN, 1);
+
+    private Painting() {
+    }
+
+    static void setUp(Graphics2D g) {
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+    }
+
+    static Color color(int argb) {
+        return new Color(argb, true);
+    }
+
+    static Font font(float size) {
+        return BASE_FONT.deriveFont(size);
+    }
+
+    /**
+     * Like Canvas.drawArc(): angles in degrees, clockwise from 3 o'clock.
+     */
+    static Arc2D arc(float left, float top, float right, float bottom,
+                     float startAngle, float sweepAngle, boolean useCenter) {
+        return new Arc2D.Float(left, top, right - left, bottom - top,
+                -startAngle, -sweepAngle, useCenter ? Arc2D.PIE : Arc2D.OPEN);
+    }
+
+    /**
+     * Like Canvas.drawText() with Paint.Align.CENTER: {@code y} is the
+     * baseline.
+     */
+    static void drawCenteredText(Graphics2D g, String text, float x, float y) {
+        FontMetrics metrics = g.getFontMetrics();
+        g.drawString(text, x - metrics.stringWidth(text) / 2f, y);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.customfancontroller.render;
+
+import com.example.customfancontroller.chartmath.PieLayout;
+import com.example.customfancontroller.chartmath.PieMath;
+
+import java.awt.BasicStroke;
+import java.awt.Graphics2D;
+import java.awt.geom.Line2D;
+
+/**
+ * A pie chart as PieView shows it once every pie has come to rest.
+ */
+public final class PieChart implements Chart {
+
+    public static final int NO_SELECTED_INDEX = -999;
+
+    private final int width;
+    private final int height;
+    private final float[] percents;
+    private final int[] colors;
+    private final int selectedIndex;
+    private final boolean showPercentLabel;
+    private final float textSize;
+
+    /**
+     * @param percents      value of every pie, in percent of the full circle
+     * @param colors        ARGB color of every pie, 0 for the default one; may
+     *                      be null
+     * @param selectedIndex index of the selected pie, or
+     *                      {@link #NO_SELECTED_INDEX}
+     * @param scaledDensity font scale of the target screen, as
+     *                      DisplayMetrics.scaledDensity
+     */
+    public PieChart(int width, int height, float[] percents, int[] colors, int selectedIndex,
+                    boolean showPercentLabel, float scaledDensity) {
+        if (colors != null && colors.length != percents.length) {
+            throw new IllegalArgumentException("colors.length != percents.length");
+        }
+        this.width = width;
+        this.height = height;
+        this.percents = percents.clone();
+        this.colors = colors == null ? new int[percents.length] : colors.clone();
+        this.selectedIndex = selectedIndex;
+        this.showPercentLabel = showPercentLabel;
+        this.textSize = (int) (PieLayout.TEXT_SIZE_SP * scaledDensity + 0.5f);
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public void paint(Graphics2D g) {
+        final int size = percents.length;
+        if (size == 0) {
+            return;
+        }
+        Painting.setUp(g);
+        final int radius = PieLayout.radius(width);
+        final int center = PieLayout.center(width);
+        final int inset = PieLayout.SELECTED_INSET;
+
+        float[] sweep = new float[size];
+        for (int i = 0; i < size; i++) {
+            sweep[i] = percents[i] * 360 / 100;
+        }
+        float[] start = new float[size];
+        float[] end = new float[size];
+        PieMath.layOut(sweep, size, PieMath.START_DEGREE, start, end);
+
+        // Separators are drawn over all wedges, as PieView batches them.
+        float[] separators = new float[size * 4];
+        float[] label = new float[2];
+        g.setFont(Painting.font(textSize));
+        for (int i = 0; i < size; i++) {
+            boolean selected = i == selectedIndex;
+            g.setColor(Painting.color(PieLayout.color(i, colors[i])));
+            if (selected) {
+                g.fill(Painting.arc(inset, inset, width - inset, height - inset, start[i], sweep[i], true));
+            } else {
+                g.fill(Painting.arc(center - radius, center - radius, center + radius, center + radius,
+                        start[i], sweep[i], true));
+            }
+
+            if (showPercentLabel) {
+                PieMath.labelPosition(start[i], end[i], height / 2, radius, label);
+                g.setColor(Painting.color(PieLayout.TEXT_COLOR));
+                Painting.drawCenteredText(g, PieLayout.percent(sweep[i]) + "%", label[0], label[1]);
+            }
+
+            PieMath.edgeDirection(start[i], separators, i * 4);
+            PieMath.edgeDirection(end[i], separators, i * 4 + 2);
+        }
+
+        g.setColor(Painting.color(PieLayout.SEPARATOR_COLOR));
+        g.setStroke(new BasicStroke(PieLayout.SEPARATOR_WIDTH));
+        for (int i = 0; i < size; i++) {
+            int length = i == selectedIndex ? height / 2 : radius;
+            for (int edge = 0; edge < 4; edge += 2) {
+                float cos = separators[i * 4 + edge];
+                float sin = separators[i * 4 + edge + 1];
+                g.draw(new Line2D.Float(center, center,
+                        height / 2 + cos * length, height / 2 + sin * length));
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.customfancontroller.render;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Renders random pie and dial charts to a directory and prints how many
+ * charts per second the batch renderer managed.
+ *
+ * <pre>RenderSamples &lt;output directory&gt; [count]</pre>
+ */
+public final class RenderSamples {
+
+    private static final int SIZE = 400;
+
+    private RenderSamples() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: RenderSamples <output directory> [count]");
+            System.exit(1);
+        }
+        File directory = new File(args[0]);
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+
+        Random random = new Random(17);
+        List<Chart> charts = new ArrayList<Chart>(count);
+        List<File> outputs = new ArrayList<File>(count);
+        for (int i = 0; i < count; i++) {
+            if (i % 2 == 0) {
+                charts.add(randomPie(random));
+                outputs.add(new File(directory, "pie-" + i + ".png"));
+            } else {
+                charts.add(new DialChart(SIZE, SIZE, 12, random.nextInt(12)));
+                outputs.add(new File(directory, "dial-" + i + ".png"));
+            }
+        }
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        BatchRenderer renderer = new BatchRenderer(cores);
+        try {
+            long start = System.nanoTime();
+            renderer.render(charts, outputs);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%d charts in %.2f s: %.0f charts/s, %.0f charts/s per core%n",
+                    count, seconds, count / seconds, count / seconds / cores);
+        } finally {
+            renderer.shutdown();
+        }
+    }
+
+    private static PieChart randomPie(Random random) {
+        int size = 5 + random.nextInt(5);
+        float[] values = new float[size];
+        float total = 0;
+        for (int i = 0; i < size; i++) {
+            values[i] = 1 + random.nextInt(10);
+            total += values[i];
+        }
+        for (int i = 0; i < size; i++) {
+            values[i] = 100f * values[i] / total;
+        }
+        int selected = random.nextInt(size + 1) - 1;
+        return new PieChart(SIZE, SIZE, values, null,
+                selected < 0 ? PieChart.NO_SELECTED_INDEX : selected, true, 2f);
+    }
+}